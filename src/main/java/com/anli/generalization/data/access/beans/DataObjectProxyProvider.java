@@ -1,18 +1,27 @@
 package com.anli.generalization.data.access.beans;
 
 import com.anli.generalization.data.access.internal.beans.DataObjectProvider;
+import com.anli.generalization.data.access.internal.beans.IdProvider;
+import com.anli.generalization.data.access.internal.beans.MetadataResolver;
 import com.anli.generalization.data.entities.DataObject;
+import com.anli.generalization.data.entities.jpa.ChildrenGroup;
 import com.anli.generalization.data.entities.jpa.JpaDataObject;
+import com.anli.generalization.data.entities.metadata.Attribute;
 import com.anli.generalization.data.entities.metadata.ObjectType;
-import com.anli.generalization.data.entities.metadata.jpa.JpaObjectType;
 import com.anli.generalization.data.entities.proxy.DataObjectProxy;
 import com.anli.generalization.data.entities.proxy.DataObjectProxyBuilder;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.springframework.transaction.annotation.Transactional;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
 import static org.springframework.transaction.annotation.Propagation.MANDATORY;
 
 @Named
@@ -21,12 +30,17 @@ public class DataObjectProxyProvider
 
     protected final DataObjectProxyBuilder proxyBuilder;
     protected final DataObjectProvider dataObjectManager;
+    protected final IdProvider idProvider;
+    protected final MetadataResolver metadataResolver;
 
     @Inject
     public DataObjectProxyProvider(DataObjectProxyBuilder proxyBuilder,
-            DataObjectProvider dataObjectManager) {
+            DataObjectProvider dataObjectManager, IdProvider idProvider,
+            MetadataResolver metadataResolver) {
         this.proxyBuilder = proxyBuilder;
         this.dataObjectManager = dataObjectManager;
+        this.idProvider = idProvider;
+        this.metadataResolver = metadataResolver;
     }
 
     @Override
@@ -34,22 +48,146 @@ public class DataObjectProxyProvider
     public DataObject create(ObjectType type) {
         checkArgument(type != null, "Object type can't be null");
         JpaDataObject jpaObject = dataObjectManager.createEntity();
-        jpaObject.setObjectType((JpaObjectType) type);
+        jpaObject.setObjectType(metadataResolver.getObjectType(type));
         return proxyBuilder.getProxy(jpaObject);
     }
 
+    @Transactional(propagation = MANDATORY)
+    public List<DataObject> createAll(ObjectType type, int count) {
+        checkArgument(type != null, "Object type can't be null");
+        checkArgument(count >= 0, "Object count can't be negative");
+        List<ObjectSpec> specs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            specs.add(new ObjectSpec(type));
+        }
+        return createAll(specs);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<DataObject> createAll(List<ObjectSpec> specs) {
+        checkArgument(specs != null, "Object specifications can't be null");
+        if (specs.isEmpty()) {
+            return emptyList();
+        }
+        List<DataObject> objects = new ArrayList<>(specs.size());
+        idProvider.startReservation(countEntities(specs));
+        try {
+            for (ObjectSpec spec : specs) {
+                objects.add(create(spec));
+            }
+        } finally {
+            idProvider.finishReservation();
+        }
+        return objects;
+    }
+
+    protected DataObject create(ObjectSpec spec) {
+        checkArgument(spec != null, "Object specification can't be null");
+        DataObject object = create(spec.getObjectType());
+        object.setName(spec.getName());
+        object.setDescription(spec.getDescription());
+        for (Map.Entry<Attribute, Object> value : spec.getValues().entrySet()) {
+            Attribute attribute = value.getKey();
+            if (attribute.isMultiple()) {
+                object.setMultipleValues(attribute, (List) value.getValue());
+            } else {
+                object.setSingleValue(attribute, value.getValue());
+            }
+        }
+        return object;
+    }
+
+    protected int countEntities(List<ObjectSpec> specs) {
+        int count = 0;
+        for (ObjectSpec spec : specs) {
+            count++;
+            if (spec == null) {
+                continue;
+            }
+            for (Map.Entry<Attribute, Object> value : spec.getValues().entrySet()) {
+                Object data = value.getValue();
+                if (data instanceof Collection) {
+                    int size = ((Collection) data).size();
+                    count += size > 0 ? size + 1 : 0;
+                } else if (data != null) {
+                    count += 2;
+                }
+            }
+        }
+        return count;
+    }
+
     @Override
     @Transactional(propagation = MANDATORY)
     public DataObject getById(BigInteger id) {
         return proxyBuilder.getProxy(dataObjectManager.getEntityById(id));
     }
 
+    @Transactional(propagation = MANDATORY)
+    public DataObject getReadOnlyById(BigInteger id) {
+        return proxyBuilder.getProxy(dataObjectManager.getReadOnlyEntityById(id), true);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<DataObject> getByIds(Collection<BigInteger> ids) {
+        return getProxies(dataObjectManager.getEntitiesByIds(ids), false);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<DataObject> getReadOnlyByIds(Collection<BigInteger> ids) {
+        return getProxies(dataObjectManager.getReadOnlyEntitiesByIds(ids), true);
+    }
+
+    protected List<DataObject> getProxies(List<JpaDataObject> jpaObjects, boolean readOnly) {
+        List<DataObject> objects = new ArrayList<>(jpaObjects.size());
+        for (JpaDataObject jpaObject : jpaObjects) {
+            objects.add(proxyBuilder.getProxy(jpaObject, readOnly));
+        }
+        return objects;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<DataObject> getAncestors(DataObject object) {
+        checkArgument(object != null, "Object can't be null");
+        return ((DataObjectProxy) object).getAncestors();
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void moveChildren(DataObject source, DataObject target, ObjectType type) {
+        checkArgument(source != null, "Source object can't be null");
+        ((DataObjectProxy) source).moveChildren(target, type);
+    }
+
     @Override
     @Transactional(propagation = MANDATORY)
     public void remove(DataObject object) {
         checkArgument(object != null, "Object to remove can't be null");
         DataObjectProxy proxy = (DataObjectProxy) object;
-        JpaDataObject jpaObject = proxy.getProxiedObject();
+        JpaDataObject jpaObject = proxy.isReadOnly()
+                ? dataObjectManager.getEntityById(proxy.getId()) : proxy.getProxiedObject();
+        ChildrenGroup parentGroup = jpaObject.getParentGroup();
+        if (parentGroup != null) {
+            dataObjectManager.removeFromGroup(parentGroup, jpaObject);
+        }
         dataObjectManager.removeEntity(jpaObject);
+        proxyBuilder.evictProxies(singleton(proxy.getId()));
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void removeAll(Collection<DataObject> objects) {
+        checkArgument(objects != null, "Objects to remove can't be null");
+        List<BigInteger> ids = new ArrayList<>(objects.size());
+        for (DataObject object : objects) {
+            checkArgument(object != null, "Object to remove can't be null");
+            ids.add(object.getId());
+        }
+        dataObjectManager.removeEntitiesByIds(ids);
+        proxyBuilder.evictProxies(ids);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void removeByIds(Collection<BigInteger> ids) {
+        dataObjectManager.removeEntitiesByIds(ids);
+        proxyBuilder.evictProxies(ids);
     }
 }
@@ -2,12 +2,29 @@ package com.anli.generalization.data.access.beans;
 
 import com.anli.generalization.data.entities.jpa.JpaObject;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.TypedQuery;
 import org.springframework.transaction.annotation.Transactional;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.partition;
+import static org.eclipse.persistence.config.HintValues.TRUE;
+import static org.eclipse.persistence.config.QueryHints.READ_ONLY;
 import static org.springframework.transaction.annotation.Propagation.MANDATORY;
 
 public abstract class GenericProvider<E extends JpaObject> extends JpaProvider {
 
+    protected static final int ID_CHUNK_SIZE = 500;
+    protected static final Map<String, Object> READ_ONLY_HINTS =
+            Collections.<String, Object>singletonMap(READ_ONLY, TRUE);
+
     protected abstract Class<E> getEntityClass();
 
     protected abstract E getEntityInstance();
@@ -15,7 +32,7 @@ public abstract class GenericProvider<E extends JpaObject> extends JpaProvider {
     @Transactional(propagation = MANDATORY)
     public E createEntity() {
         E entity = getEntityInstance();
-        getManager().persist(entity);
+        persist(entity);
         return entity;
     }
 
@@ -24,8 +41,53 @@ public abstract class GenericProvider<E extends JpaObject> extends JpaProvider {
         return getManager().find(getEntityClass(), id);
     }
 
+    @Transactional(propagation = MANDATORY)
+    public E getReadOnlyEntityById(BigInteger id) {
+        return getManager().find(getEntityClass(), id, READ_ONLY_HINTS);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<E> getEntitiesByIds(Collection<BigInteger> ids) {
+        return getEntitiesByIds(ids, false);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<E> getReadOnlyEntitiesByIds(Collection<BigInteger> ids) {
+        return getEntitiesByIds(ids, true);
+    }
+
+    protected List<E> getEntitiesByIds(Collection<BigInteger> ids, boolean readOnly) {
+        checkArgument(ids != null, "Ids can't be null");
+        Set<BigInteger> uniqueIds = new LinkedHashSet<>();
+        for (BigInteger id : ids) {
+            checkArgument(id != null, "Id can't be null");
+            uniqueIds.add(id);
+        }
+        Map<BigInteger, E> entities = new HashMap<>();
+        String query = "select e from " + getEntityName() + " e where e.id in :ids";
+        for (List<BigInteger> chunk : partition(new ArrayList<>(uniqueIds), ID_CHUNK_SIZE)) {
+            TypedQuery<E> chunkQuery = getManager().createQuery(query, getEntityClass())
+                    .setParameter("ids", chunk);
+            if (readOnly) {
+                chunkQuery.setHint(READ_ONLY, TRUE);
+            }
+            for (E entity : chunkQuery.getResultList()) {
+                entities.put(entity.getId(), entity);
+            }
+        }
+        List<E> result = new ArrayList<>(ids.size());
+        for (BigInteger id : ids) {
+            result.add(entities.get(id));
+        }
+        return result;
+    }
+
     @Transactional(propagation = MANDATORY)
     public void removeEntity(E entity) {
         getManager().remove(entity);
     }
+
+    protected String getEntityName() {
+        return getManager().getMetamodel().entity(getEntityClass()).getName();
+    }
 }
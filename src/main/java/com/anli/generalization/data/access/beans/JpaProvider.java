@@ -1,7 +1,14 @@
 package com.anli.generalization.data.access.beans;
 
+import com.anli.generalization.data.entities.jpa.JpaObject;
+import com.anli.generalization.data.sequencing.IdReservation;
+import java.math.BigInteger;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.eclipse.persistence.sessions.server.ServerSession;
+
+import static org.springframework.transaction.support.TransactionSynchronizationManager.getResource;
 
 public class JpaProvider {
 
@@ -11,4 +18,19 @@ public class JpaProvider {
     protected EntityManager getManager() {
         return manager;
     }
+
+    protected ServerSession getServerSession() {
+        return getManager().unwrap(JpaEntityManager.class).getServerSession();
+    }
+
+    protected void persist(JpaObject entity) {
+        IdReservation reservation = (IdReservation) getResource(IdReservation.class);
+        if (reservation != null) {
+            BigInteger id = reservation.nextId();
+            if (id != null) {
+                entity.setId(id);
+            }
+        }
+        getManager().persist(entity);
+    }
 }
@@ -0,0 +1,52 @@
+package com.anli.generalization.data.access.beans;
+
+import com.anli.generalization.data.entities.metadata.Attribute;
+import com.anli.generalization.data.entities.metadata.ObjectType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class ObjectSpec {
+
+    protected final ObjectType objectType;
+    protected final Map<Attribute, Object> values;
+
+    protected String name;
+    protected String description;
+
+    public ObjectSpec(ObjectType objectType) {
+        checkArgument(objectType != null, "Object type can't be null");
+        this.objectType = objectType;
+        this.values = new LinkedHashMap<>();
+    }
+
+    public ObjectType getObjectType() {
+        return objectType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Map<Attribute, Object> getValues() {
+        return values;
+    }
+
+    public void setValue(Attribute attribute, Object value) {
+        checkArgument(attribute != null, "Attribute of value can not be null");
+        values.put(attribute, value);
+    }
+}
@@ -0,0 +1,51 @@
+package com.anli.generalization.data.access.internal;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+public class TransactionResources {
+
+    protected static final String REGISTRY_NAME = "java:comp/TransactionSynchronizationRegistry";
+
+    private static volatile TransactionSynchronizationRegistry registry;
+
+    public static boolean isTransactionActive() {
+        TransactionSynchronizationRegistry currentRegistry = getRegistry();
+        return currentRegistry != null && currentRegistry.getTransactionKey() != null;
+    }
+
+    public static Object get(Object key) {
+        TransactionSynchronizationRegistry currentRegistry = getRegistry();
+        if (currentRegistry == null || currentRegistry.getTransactionKey() == null) {
+            return null;
+        }
+        return currentRegistry.getResource(key);
+    }
+
+    public static void put(Object key, Object value) {
+        TransactionSynchronizationRegistry currentRegistry = getRegistry();
+        if (currentRegistry != null && currentRegistry.getTransactionKey() != null) {
+            currentRegistry.putResource(key, value);
+        }
+    }
+
+    public static void registerSynchronization(Synchronization synchronization) {
+        TransactionSynchronizationRegistry currentRegistry = getRegistry();
+        if (currentRegistry != null && currentRegistry.getTransactionKey() != null) {
+            currentRegistry.registerInterposedSynchronization(synchronization);
+        }
+    }
+
+    protected static TransactionSynchronizationRegistry getRegistry() {
+        if (registry == null) {
+            try {
+                registry = InitialContext.doLookup(REGISTRY_NAME);
+            } catch (NamingException ex) {
+                return null;
+            }
+        }
+        return registry;
+    }
+}
@@ -1,12 +1,97 @@
 package com.anli.generalization.data.access.internal.beans;
 
 import com.anli.generalization.data.access.beans.GenericProvider;
+import com.anli.generalization.data.access.internal.TransactionResources;
+import com.anli.generalization.data.entities.jpa.ChildrenGroup;
 import com.anli.generalization.data.entities.jpa.JpaDataObject;
+import com.anli.generalization.data.entities.jpa.JpaObject;
+import com.anli.generalization.data.entities.parameter.jpa.Parameter;
+import com.anli.generalization.data.entities.parameter.jpa.ParameterValue;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import javax.inject.Named;
+import javax.persistence.Cache;
+import javax.persistence.Query;
+import org.eclipse.persistence.internal.sessions.UnitOfWorkImpl;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Lists.partition;
+import static javax.persistence.LockModeType.PESSIMISTIC_WRITE;
+import static org.eclipse.persistence.config.HintValues.TRUE;
+import static org.eclipse.persistence.config.QueryHints.READ_ONLY;
+import static org.eclipse.persistence.config.QueryHints.REFRESH;
+import static org.springframework.transaction.annotation.Propagation.MANDATORY;
 
 @Named
 public class DataObjectProvider extends GenericProvider<JpaDataObject> {
 
+    protected static final String SELECT_ANCESTORS = "with recursive ancestors (object_id, depth) as ("
+            + "select g.parent_id, 1 from data_objects o "
+            + "join children_groups g on g.group_id = o.children_group_id where o.object_id = ?1 "
+            + "union all select g.parent_id, a.depth + 1 from ancestors a "
+            + "join data_objects o on o.object_id = a.object_id "
+            + "join children_groups g on g.group_id = o.children_group_id where a.depth < ?2) "
+            + "select o.* from ancestors a join data_objects o on o.object_id = a.object_id "
+            + "order by a.depth desc";
+    protected static final int MAX_ANCESTOR_DEPTH = 500;
+    protected static final String SELECT_PARENT_GROUPS = "select distinct children_group_id "
+            + "from data_objects where children_group_id is not null and object_id in (%s)";
+    protected static final String SELECT_PARAMETERS = "select parameter_id from parameters where object_id in (%s)";
+    protected static final String SELECT_VALUES = "select v.value_id from parameter_values v "
+            + "join parameters p on p.parameter_id = v.parameter_id where p.object_id in (%s)";
+    protected static final String SELECT_REFERRING_VALUES = "select value_id from parameter_values "
+            + "where reference_id in (%s)";
+    protected static final String SELECT_GROUPS = "select group_id from children_groups where parent_id in (%s)";
+    protected static final String SELECT_ORPHANED_CHILDREN = "select o.object_id from data_objects o "
+            + "join children_groups g on g.group_id = o.children_group_id where g.parent_id in (%s)";
+    protected static final String DELETE_VALUES = "delete v from parameter_values v "
+            + "join parameters p on p.parameter_id = v.parameter_id where p.object_id in (%s)";
+    protected static final String DELETE_PARAMETERS = "delete from parameters where object_id in (%s)";
+    protected static final String DELETE_GROUPS = "delete from children_groups where parent_id in (%s)";
+    protected static final String DELETE_OBJECTS = "delete from data_objects where object_id in (%s)";
+    protected static final String RECOUNT_GROUPS = "update children_groups g set child_count = "
+            + "(select count(*) from data_objects o where o.children_group_id = g.group_id) "
+            + "where g.group_id in (%s)";
+    protected static final String COUNT_GROUP_CHILDREN = "select count(*) from data_objects "
+            + "where children_group_id = ?1";
+    protected static final String REPARENT_OBJECTS = "update data_objects set children_group_id = ?%d "
+            + "where object_id in (%s)";
+    protected static final String MOVE_GROUP_CHILDREN = "update data_objects set children_group_id = ?1 "
+            + "where children_group_id = ?2";
+
+    protected static final String SELECT_GROUP_PAGE = "(select o.* from data_objects o "
+            + "where o.children_group_id = ?%d%s order by o.object_id limit ?%d)";
+    protected static final String AFTER_ID_CONDITION = " and o.object_id > ?%d";
+    protected static final String SELECT_MERGED_PAGE = "select p.* from (%s) p order by p.object_id limit ?%d";
+    protected static final String SELECT_GROUP_BY_NAME = "(select o.* from data_objects o "
+            + "where o.children_group_id = ?%d%s order by o.name, o.object_id limit ?%d)";
+    protected static final String SELECT_MERGED_BY_NAME = "select p.* from (%s) p "
+            + "order by p.name, p.object_id limit ?%d";
+    protected static final String SELECT_BY_VALUE = "select o.* from data_objects o "
+            + "left join parameters p on p.object_id = o.object_id and p.attribute_id = ?%d "
+            + "left join parameter_values v on v.parameter_id = p.parameter_id "
+            + "where o.children_group_id in (%s)%s order by v.%s, o.object_id limit ?%d";
+    protected static final String AFTER_KEY_CONDITION = " and (%1$s > ?%2$d "
+            + "or (%1$s = ?%2$d and o.object_id > ?%3$d))";
+    protected static final String AFTER_NULL_KEY_CONDITION = " and (%1$s is not null or o.object_id > ?%3$d)";
+    protected static final String SELECT_NAME_KEY = "select o.name from data_objects o where o.object_id = ?1";
+    protected static final String SELECT_VALUE_KEY = "select v.%s from parameters p "
+            + "join parameter_values v on v.parameter_id = p.parameter_id "
+            + "where p.object_id = ?1 and p.attribute_id = ?2";
+    protected static final String NAME_COLUMN = "o.name";
+    protected static final String TEXT_VALUE_COLUMN = "text_value";
+    protected static final String DATE_VALUE_COLUMN = "date_value";
+
+    protected static final String LOCKED_GROUPS = DataObjectProvider.class.getName() + ".lockedGroups";
+
     @Override
     protected Class<JpaDataObject> getEntityClass() {
         return JpaDataObject.class;
@@ -16,4 +101,400 @@ public class DataObjectProvider extends GenericProvider<JpaDataObject> {
     protected JpaDataObject getEntityInstance() {
         return new JpaDataObject();
     }
+
+    @Transactional(propagation = MANDATORY)
+    public List<JpaDataObject> getAncestors(BigInteger id) {
+        return getAncestors(id, false);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<JpaDataObject> getAncestors(BigInteger id, boolean readOnly) {
+        checkArgument(id != null, "Id can't be null");
+        getManager().flush();
+        Query query = getManager().createNativeQuery(SELECT_ANCESTORS, JpaDataObject.class)
+                .setParameter(1, id)
+                .setParameter(2, MAX_ANCESTOR_DEPTH);
+        if (readOnly) {
+            query.setHint(READ_ONLY, TRUE);
+        }
+        List<JpaDataObject> ancestors = query.getResultList();
+        Set<BigInteger> visitedIds = new HashSet<>();
+        visitedIds.add(id);
+        int first = ancestors.size();
+        while (first > 0 && visitedIds.add(ancestors.get(first - 1).getId())) {
+            first--;
+        }
+        return new ArrayList<>(ancestors.subList(first, ancestors.size()));
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<JpaDataObject> getChildrenPage(List<BigInteger> groupIds, BigInteger afterId, int limit,
+            boolean readOnly) {
+        checkArgument(groupIds != null && !groupIds.isEmpty(), "Children group ids can't be empty");
+        checkArgument(limit > 0, "Page limit should be positive");
+        getManager().flush();
+        int afterIdParameter = groupIds.size() + 1;
+        int limitParameter = groupIds.size() + 2;
+        String afterIdCondition = afterId != null ? String.format(AFTER_ID_CONDITION, afterIdParameter) : "";
+        StringBuilder sql = new StringBuilder();
+        for (int i = 1; i <= groupIds.size(); i++) {
+            sql.append(i > 1 ? " union all " : "")
+                    .append(String.format(SELECT_GROUP_PAGE, i, afterIdCondition, limitParameter));
+        }
+        String pageSql = groupIds.size() > 1
+                ? String.format(SELECT_MERGED_PAGE, sql, limitParameter) : sql.toString();
+        Query query = getManager().createNativeQuery(pageSql, JpaDataObject.class);
+        for (int i = 0; i < groupIds.size(); i++) {
+            query.setParameter(i + 1, groupIds.get(i));
+        }
+        if (afterId != null) {
+            query.setParameter(afterIdParameter, afterId);
+        }
+        query.setParameter(limitParameter, limit);
+        if (readOnly) {
+            query.setHint(READ_ONLY, TRUE);
+        }
+        return query.getResultList();
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<JpaDataObject> getChildrenSortedByName(List<BigInteger> groupIds, BigInteger afterId,
+            int limit, boolean readOnly) {
+        checkSortWindow(groupIds, limit);
+        getManager().flush();
+        Object afterKey = afterId != null
+                ? getSortKey(getManager().createNativeQuery(SELECT_NAME_KEY).setParameter(1, afterId)) : null;
+        int afterKeyParameter = groupIds.size() + 1;
+        int limitParameter = groupIds.size() + 3;
+        String afterCondition = getAfterCondition(NAME_COLUMN, afterId, afterKey, afterKeyParameter);
+        StringBuilder sql = new StringBuilder();
+        for (int i = 1; i <= groupIds.size(); i++) {
+            sql.append(i > 1 ? " union all " : "")
+                    .append(String.format(SELECT_GROUP_BY_NAME, i, afterCondition, limitParameter));
+        }
+        String pageSql = groupIds.size() > 1
+                ? String.format(SELECT_MERGED_BY_NAME, sql, limitParameter) : sql.toString();
+        return getSortedQuery(pageSql, 1, groupIds, afterId, afterKey, limit, readOnly).getResultList();
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<JpaDataObject> getChildrenSortedByValue(List<BigInteger> groupIds, BigInteger attributeId,
+            boolean dateValue, BigInteger afterId, int limit, boolean readOnly) {
+        checkArgument(attributeId != null, "Sort attribute id can't be null");
+        checkSortWindow(groupIds, limit);
+        getManager().flush();
+        String column = dateValue ? DATE_VALUE_COLUMN : TEXT_VALUE_COLUMN;
+        Object afterKey = afterId != null
+                ? getSortKey(getManager().createNativeQuery(String.format(SELECT_VALUE_KEY, column))
+                        .setParameter(1, afterId)
+                        .setParameter(2, attributeId)) : null;
+        int afterKeyParameter = groupIds.size() + 2;
+        String afterCondition = getAfterCondition("v." + column, afterId, afterKey, afterKeyParameter);
+        String sql = String.format(SELECT_BY_VALUE, 1, getPlaceholders(2, groupIds.size()), afterCondition,
+                column, groupIds.size() + 4);
+        Query query = getSortedQuery(sql, 2, groupIds, afterId, afterKey, limit, readOnly);
+        query.setParameter(1, attributeId);
+        return query.getResultList();
+    }
+
+    protected void checkSortWindow(List<BigInteger> groupIds, int limit) {
+        checkArgument(groupIds != null && !groupIds.isEmpty(), "Children group ids can't be empty");
+        checkArgument(limit > 0, "Page limit should be positive");
+    }
+
+    protected Object getSortKey(Query keyQuery) {
+        List<Object> keys = keyQuery.getResultList();
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    protected String getAfterCondition(String column, BigInteger afterId, Object afterKey,
+            int afterKeyParameter) {
+        if (afterId == null) {
+            return "";
+        }
+        return String.format(afterKey != null ? AFTER_KEY_CONDITION : AFTER_NULL_KEY_CONDITION,
+                column, afterKeyParameter, afterKeyParameter + 1);
+    }
+
+    protected Query getSortedQuery(String sql, int firstGroupParameter, List<BigInteger> groupIds,
+            BigInteger afterId, Object afterKey, int limit, boolean readOnly) {
+        Query query = getManager().createNativeQuery(sql, JpaDataObject.class);
+        for (int i = 0; i < groupIds.size(); i++) {
+            query.setParameter(firstGroupParameter + i, groupIds.get(i));
+        }
+        int afterKeyParameter = firstGroupParameter + groupIds.size();
+        if (afterKey != null) {
+            query.setParameter(afterKeyParameter, afterKey);
+        }
+        if (afterId != null) {
+            query.setParameter(afterKeyParameter + 1, afterId);
+        }
+        query.setParameter(afterKeyParameter + 2, limit);
+        if (readOnly) {
+            query.setHint(READ_ONLY, TRUE);
+        }
+        return query;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void removeEntities(Collection<JpaDataObject> entities) {
+        checkArgument(entities != null, "Entities to remove can't be null");
+        List<BigInteger> ids = new ArrayList<>(entities.size());
+        for (JpaDataObject entity : entities) {
+            checkArgument(entity != null, "Entity to remove can't be null");
+            ids.add(entity.getId());
+        }
+        removeEntitiesByIds(ids);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void removeEntitiesByIds(Collection<BigInteger> ids) {
+        checkArgument(ids != null, "Ids can't be null");
+        Set<BigInteger> uniqueIds = new LinkedHashSet<>();
+        for (BigInteger id : ids) {
+            checkArgument(id != null, "Id can't be null");
+            uniqueIds.add(id);
+        }
+        if (uniqueIds.isEmpty()) {
+            return;
+        }
+        getManager().flush();
+        Set<BigInteger> parentGroupIds = new HashSet<>();
+        Set<BigInteger> parameterIds = new HashSet<>();
+        Set<BigInteger> valueIds = new HashSet<>();
+        Set<BigInteger> groupIds = new HashSet<>();
+        Set<BigInteger> orphanIds = new HashSet<>();
+        Set<BigInteger> referringValueIds = new HashSet<>();
+        for (List<BigInteger> chunk : partition(new ArrayList<>(uniqueIds), ID_CHUNK_SIZE)) {
+            collectIds(SELECT_PARENT_GROUPS, chunk, parentGroupIds);
+            collectIds(SELECT_PARAMETERS, chunk, parameterIds);
+            collectIds(SELECT_VALUES, chunk, valueIds);
+            collectIds(SELECT_GROUPS, chunk, groupIds);
+            collectIds(SELECT_ORPHANED_CHILDREN, chunk, orphanIds);
+            collectIds(SELECT_REFERRING_VALUES, chunk, referringValueIds);
+            createForIds(DELETE_VALUES, chunk).executeUpdate();
+            createForIds(DELETE_PARAMETERS, chunk).executeUpdate();
+            createForIds(DELETE_GROUPS, chunk).executeUpdate();
+            createForIds(DELETE_OBJECTS, chunk).executeUpdate();
+        }
+        parentGroupIds.removeAll(groupIds);
+        orphanIds.removeAll(uniqueIds);
+        referringValueIds.removeAll(valueIds);
+        recountGroups(parentGroupIds);
+        List<Object> removedClones = new ArrayList<>();
+        List<Object> staleClones = new ArrayList<>();
+        for (Object clone : getUnitOfWork().getCloneMapping().keySet()) {
+            if (isCloneOf(clone, JpaDataObject.class, uniqueIds)
+                    || isCloneOf(clone, Parameter.class, parameterIds)
+                    || isCloneOf(clone, ParameterValue.class, valueIds)
+                    || isCloneOf(clone, ChildrenGroup.class, groupIds)) {
+                removedClones.add(clone);
+            } else if (isCloneOf(clone, JpaDataObject.class, orphanIds)
+                    || isCloneOf(clone, ParameterValue.class, referringValueIds)) {
+                staleClones.add(clone);
+            }
+        }
+        for (Object clone : removedClones) {
+            getManager().detach(clone);
+        }
+        Cache cache = getManager().getEntityManagerFactory().getCache();
+        evict(cache, JpaDataObject.class, uniqueIds);
+        evict(cache, JpaDataObject.class, orphanIds);
+        evict(cache, Parameter.class, parameterIds);
+        evict(cache, ParameterValue.class, valueIds);
+        evict(cache, ParameterValue.class, referringValueIds);
+        evict(cache, ChildrenGroup.class, groupIds);
+        evict(cache, ChildrenGroup.class, parentGroupIds);
+        for (Object clone : staleClones) {
+            getManager().refresh(clone);
+        }
+        refreshGroups(parentGroupIds);
+    }
+
+    protected void collectIds(String sqlTemplate, List<BigInteger> chunk, Set<BigInteger> ids) {
+        for (Object id : createForIds(sqlTemplate, chunk).getResultList()) {
+            ids.add(new BigInteger(id.toString()));
+        }
+    }
+
+    protected boolean isCloneOf(Object clone, Class<? extends JpaObject> entityClass, Set<BigInteger> ids) {
+        return entityClass.isInstance(clone) && ids.contains(((JpaObject) clone).getId());
+    }
+
+    protected void evict(Cache cache, Class<?> entityClass, Set<BigInteger> ids) {
+        for (BigInteger id : ids) {
+            cache.evict(entityClass, id);
+        }
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void moveToGroup(ChildrenGroup group, Collection<JpaDataObject> children) {
+        checkArgument(group != null, "Target group can't be null");
+        checkArgument(children != null, "Moved children can't be null");
+        getManager().flush();
+        lockGroup(group);
+        List<BigInteger> ids = new ArrayList<>(children.size());
+        Set<BigInteger> groupIds = new HashSet<>();
+        groupIds.add(group.getId());
+        for (JpaDataObject child : children) {
+            checkArgument(child != null, "Moved child can't be null");
+            BigInteger previousGroupId = child.getParentGroupId();
+            if (group.getId().equals(previousGroupId)) {
+                continue;
+            }
+            ids.add(child.getId());
+            if (previousGroupId != null) {
+                groupIds.add(previousGroupId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (List<BigInteger> chunk : partition(ids, ID_CHUNK_SIZE)) {
+            int groupParameter = chunk.size() + 1;
+            Query query = getManager().createNativeQuery(String.format(REPARENT_OBJECTS, groupParameter,
+                    getPlaceholders(1, chunk.size())));
+            for (int i = 0; i < chunk.size(); i++) {
+                query.setParameter(i + 1, chunk.get(i));
+            }
+            query.setParameter(groupParameter, group.getId()).executeUpdate();
+        }
+        recountGroups(groupIds);
+        refreshEntities(ids);
+        refreshGroups(groupIds);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void moveGroupChildren(ChildrenGroup source, ChildrenGroup target) {
+        checkArgument(source != null, "Source group can't be null");
+        checkArgument(target != null, "Target group can't be null");
+        if (source == target) {
+            return;
+        }
+        getManager().flush();
+        lockGroup(source);
+        lockGroup(target);
+        List<BigInteger> managedIds = new ArrayList<>();
+        for (Object clone : getUnitOfWork().getCloneMapping().keySet()) {
+            if (clone instanceof JpaDataObject
+                    && source.getId().equals(((JpaDataObject) clone).getParentGroupId())) {
+                managedIds.add(((JpaDataObject) clone).getId());
+            }
+        }
+        getManager().createNativeQuery(MOVE_GROUP_CHILDREN)
+                .setParameter(1, target.getId())
+                .setParameter(2, source.getId())
+                .executeUpdate();
+        List<BigInteger> groupIds = Arrays.asList(source.getId(), target.getId());
+        recountGroups(groupIds);
+        refreshEntities(managedIds);
+        refreshGroups(groupIds);
+    }
+
+    protected void recountGroups(Collection<BigInteger> groupIds) {
+        for (List<BigInteger> chunk : partition(new ArrayList<>(groupIds), ID_CHUNK_SIZE)) {
+            createForIds(RECOUNT_GROUPS, chunk).executeUpdate();
+        }
+    }
+
+    protected void refreshEntities(List<BigInteger> ids) {
+        String query = "select e from " + getEntityName() + " e where e.id in :ids";
+        for (List<BigInteger> chunk : partition(ids, ID_CHUNK_SIZE)) {
+            getManager().createQuery(query, JpaDataObject.class)
+                    .setParameter("ids", chunk)
+                    .setHint(REFRESH, TRUE)
+                    .getResultList();
+        }
+    }
+
+    protected void refreshGroups(Collection<BigInteger> groupIds) {
+        for (BigInteger groupId : groupIds) {
+            ChildrenGroup group = getManager().find(ChildrenGroup.class, groupId);
+            if (group != null) {
+                getManager().refresh(group);
+            }
+        }
+    }
+
+    public Collection<JpaDataObject> getChildren(ChildrenGroup group) {
+        if (!group.isChildrenInstantiated() && TransactionResources.isTransactionActive()) {
+            getManager().flush();
+        }
+        return group.getChildren();
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void addToGroup(ChildrenGroup group, JpaDataObject child) {
+        ChildrenGroup previousGroup = child.getParentGroup();
+        if (previousGroup == group) {
+            return;
+        }
+        if (previousGroup != null) {
+            removeFromGroup(previousGroup, child);
+        }
+        lockGroup(group);
+        if (group.isChildrenInstantiated()) {
+            group.getChildren().add(child);
+        }
+        group.changeChildCount(1);
+        child.setParentGroup(group);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void removeFromGroup(ChildrenGroup group, JpaDataObject child) {
+        if (child.getParentGroup() != group) {
+            return;
+        }
+        lockGroup(group);
+        if (group.isChildrenInstantiated()) {
+            group.getChildren().remove(child);
+        }
+        if (group.getStoredChildCount() <= 0 && !getUnitOfWork().isCloneNewObject(group)) {
+            group.setStoredChildCount(countChildren(group));
+        }
+        group.changeChildCount(-1);
+        child.setParentGroup(null);
+    }
+
+    protected long countChildren(ChildrenGroup group) {
+        getManager().flush();
+        Number count = (Number) getManager().createNativeQuery(COUNT_GROUP_CHILDREN)
+                .setParameter(1, group.getId())
+                .getSingleResult();
+        return count.longValue();
+    }
+
+    protected void lockGroup(ChildrenGroup group) {
+        if (group.getId() == null || getUnitOfWork().isCloneNewObject(group)) {
+            return;
+        }
+        Set<BigInteger> lockedGroups = (Set) TransactionResources.get(LOCKED_GROUPS);
+        if (lockedGroups == null) {
+            lockedGroups = new HashSet<>();
+            TransactionResources.put(LOCKED_GROUPS, lockedGroups);
+        }
+        if (lockedGroups.add(group.getId())) {
+            getManager().lock(group, PESSIMISTIC_WRITE);
+        }
+    }
+
+    protected UnitOfWorkImpl getUnitOfWork() {
+        return (UnitOfWorkImpl) getManager().unwrap(JpaEntityManager.class).getUnitOfWork();
+    }
+
+    protected Query createForIds(String sqlTemplate, List<BigInteger> ids) {
+        Query query = getManager().createNativeQuery(String.format(sqlTemplate, getPlaceholders(1, ids.size())));
+        for (int i = 0; i < ids.size(); i++) {
+            query.setParameter(i + 1, ids.get(i));
+        }
+        return query;
+    }
+
+    protected String getPlaceholders(int first, int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = first; i < first + count; i++) {
+            placeholders.append(i > first ? ", ?" : "?").append(i);
+        }
+        return placeholders.toString();
+    }
 }
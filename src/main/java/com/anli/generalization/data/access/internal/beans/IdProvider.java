@@ -0,0 +1,52 @@
+package com.anli.generalization.data.access.internal.beans;
+
+import com.anli.generalization.data.access.beans.JpaProvider;
+import com.anli.generalization.data.entities.jpa.JpaDataObject;
+import com.anli.generalization.data.sequencing.IdBlockAllocator;
+import com.anli.generalization.data.sequencing.IdGeneratorSequence;
+import com.anli.generalization.data.sequencing.IdReservation;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import javax.inject.Named;
+import javax.persistence.PersistenceException;
+import org.eclipse.persistence.sequencing.Sequence;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.anli.generalization.data.sequencing.IdBlockAllocator.DEFAULT_ENTITY_SET;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.springframework.transaction.annotation.Propagation.MANDATORY;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.bindResource;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.hasResource;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.unbindResourceIfPossible;
+
+@Named
+public class IdProvider extends JpaProvider {
+
+    @Transactional(propagation = MANDATORY)
+    public List<BigInteger> reserveIds(int count) {
+        checkArgument(count > 0, "Reserved id count should be positive");
+        Sequence sequence = getServerSession().getDescriptor(JpaDataObject.class).getSequence();
+        if (sequence instanceof IdGeneratorSequence) {
+            return ((IdGeneratorSequence) sequence).getGenerator().reserveIds(count);
+        }
+        try {
+            return IdBlockAllocator.reserve(getManager().unwrap(Connection.class), DEFAULT_ENTITY_SET, count);
+        } catch (SQLException ex) {
+            throw new PersistenceException("Could not reserve ids for entity set " + DEFAULT_ENTITY_SET, ex);
+        }
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void startReservation(int count) {
+        checkState(!hasResource(IdReservation.class), "Id reservation is already started");
+        bindResource(IdReservation.class, new IdReservation(reserveIds(count)));
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public void finishReservation() {
+        unbindResourceIfPossible(IdReservation.class);
+    }
+}
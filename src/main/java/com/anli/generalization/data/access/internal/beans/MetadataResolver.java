@@ -0,0 +1,41 @@
+package com.anli.generalization.data.access.internal.beans;
+
+import com.anli.generalization.data.access.beans.JpaProvider;
+import com.anli.generalization.data.entities.metadata.Attribute;
+import com.anli.generalization.data.entities.metadata.ListEntry;
+import com.anli.generalization.data.entities.metadata.ObjectType;
+import com.anli.generalization.data.entities.metadata.jpa.JpaAttribute;
+import com.anli.generalization.data.entities.metadata.jpa.JpaListEntry;
+import com.anli.generalization.data.entities.metadata.jpa.JpaObjectType;
+import javax.inject.Named;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.springframework.transaction.annotation.Propagation.MANDATORY;
+
+@Named
+public class MetadataResolver extends JpaProvider {
+
+    @Transactional(propagation = MANDATORY)
+    public JpaObjectType getObjectType(ObjectType type) {
+        if (type == null || type instanceof JpaObjectType) {
+            return (JpaObjectType) type;
+        }
+        return getManager().getReference(JpaObjectType.class, type.getId());
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public JpaAttribute getAttribute(Attribute attribute) {
+        if (attribute == null || attribute instanceof JpaAttribute) {
+            return (JpaAttribute) attribute;
+        }
+        return getManager().getReference(JpaAttribute.class, attribute.getId());
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public JpaListEntry getListEntry(ListEntry entry) {
+        if (entry == null || entry instanceof JpaListEntry) {
+            return (JpaListEntry) entry;
+        }
+        return getManager().getReference(JpaListEntry.class, entry.getId());
+    }
+}
@@ -24,21 +24,21 @@ public class SecondaryEntitesFactory extends JpaProvider {
     @Transactional(propagation = MANDATORY)
     public ParameterValue createParameterValue(AttributeType type) {
         ParameterValue parameterValue = getParameterValueByType(type);
-        getManager().persist(parameterValue);
+        persist(parameterValue);
         return parameterValue;
     }
 
     @Transactional(propagation = MANDATORY)
     public Parameter createParameter() {
         Parameter parameter = new Parameter();
-        getManager().persist(parameter);
+        persist(parameter);
         return parameter;
     }
 
     @Transactional(propagation = MANDATORY)
     public ChildrenGroup createChildrenGroup() {
         ChildrenGroup group = new ChildrenGroup();
-        getManager().persist(group);
+        persist(group);
         return group;
     }
 
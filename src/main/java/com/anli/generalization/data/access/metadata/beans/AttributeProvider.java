@@ -2,17 +2,37 @@ package com.anli.generalization.data.access.metadata.beans;
 
 import com.anli.generalization.data.access.beans.GenericProvider;
 import com.anli.generalization.data.entities.metadata.Attribute;
+import com.anli.generalization.data.entities.metadata.ObjectType;
 import com.anli.generalization.data.entities.metadata.jpa.JpaAttribute;
+import com.anli.generalization.data.entities.metadata.jpa.JpaObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshot;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
+import com.anli.generalization.data.entities.metadata.snapshot.ObjectTypeSnapshot;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import javax.inject.Inject;
 import javax.inject.Named;
 import org.springframework.transaction.annotation.Transactional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.springframework.transaction.annotation.Propagation.MANDATORY;
 
 @Named
 public class AttributeProvider extends GenericProvider<JpaAttribute>
         implements com.anli.generalization.data.access.metadata.AttributeProvider {
 
+    protected final MetadataCache metadataCache;
+
+    @Inject
+    public AttributeProvider(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
     @Override
     protected Class<JpaAttribute> getEntityClass() {
         return JpaAttribute.class;
@@ -29,15 +49,122 @@ public class AttributeProvider extends GenericProvider<JpaAttribute>
         return getEntityById(id);
     }
 
+    @Transactional(propagation = MANDATORY)
+    public Attribute getReadOnlyById(BigInteger id) {
+        return metadataCache.getSnapshot().getAttribute(id);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<Attribute> getReadOnlyByIds(Collection<BigInteger> ids) {
+        checkArgument(ids != null, "Ids can't be null");
+        MetadataSnapshot metadata = metadataCache.getSnapshot();
+        List<Attribute> result = new ArrayList<>(ids.size());
+        for (BigInteger id : ids) {
+            result.add(metadata.getAttribute(id));
+        }
+        return result;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public Attribute getByName(ObjectType objectType, String name) {
+        checkArgument(objectType != null, "Object type of attribute can not be null");
+        ObjectTypeSnapshot cachedType = getCachedType(objectType);
+        if (cachedType != null) {
+            Attribute attribute = cachedType.getEffectiveAttribute(name);
+            return attribute != null ? getEntityById(attribute.getId()) : null;
+        }
+        return findByName(objectType, name);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public Attribute getReadOnlyByName(ObjectType objectType, String name) {
+        checkArgument(objectType != null, "Object type of attribute can not be null");
+        ObjectTypeSnapshot cachedType = getCachedType(objectType);
+        if (cachedType != null) {
+            return cachedType.getEffectiveAttribute(name);
+        }
+        Attribute attribute = findByName(objectType, name);
+        return attribute != null ? metadataCache.getSnapshot().getAttribute(attribute.getId()) : null;
+    }
+
+    protected Attribute findByName(ObjectType objectType, String name) {
+        for (ObjectType type = objectType; type != null; type = type.getParent()) {
+            for (Attribute attribute : type.getAttributes()) {
+                if (Objects.equals(name, attribute.getName())) {
+                    return attribute;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<Attribute> getEffectiveAttributes(ObjectType objectType) {
+        checkArgument(objectType != null, "Object type of attributes can not be null");
+        ObjectTypeSnapshot cachedType = getCachedType(objectType);
+        if (cachedType != null) {
+            return (List) getEntitiesByIds(getIds(cachedType.getEffectiveAttributes()));
+        }
+        return collectEffectiveAttributes(objectType);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<Attribute> getReadOnlyEffectiveAttributes(ObjectType objectType) {
+        checkArgument(objectType != null, "Object type of attributes can not be null");
+        ObjectTypeSnapshot cachedType = getCachedType(objectType);
+        if (cachedType != null) {
+            return cachedType.getEffectiveAttributes();
+        }
+        return getReadOnlyByIds(getIds(collectEffectiveAttributes(objectType)));
+    }
+
+    protected List<Attribute> collectEffectiveAttributes(ObjectType objectType) {
+        List<Attribute> attributes = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (ObjectType type = objectType; type != null; type = type.getParent()) {
+            for (Attribute attribute : type.getAttributes()) {
+                if (names.add(attribute.getName()) || type == objectType) {
+                    attributes.add(attribute);
+                }
+            }
+        }
+        return attributes;
+    }
+
+    protected List<BigInteger> getIds(List<Attribute> attributes) {
+        List<BigInteger> ids = new ArrayList<>(attributes.size());
+        for (Attribute attribute : attributes) {
+            ids.add(attribute.getId());
+        }
+        return ids;
+    }
+
+    protected ObjectTypeSnapshot getCachedType(ObjectType objectType) {
+        for (ObjectType type = objectType; type instanceof JpaObjectType; type = type.getParent()) {
+            if (((JpaObjectType) type).isAttributesInstantiated()) {
+                return null;
+            }
+        }
+        return metadataCache.getSnapshot().getObjectType(objectType.getId());
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<Attribute> getByIds(Collection<BigInteger> ids) {
+        return (List) getEntitiesByIds(ids);
+    }
+
     @Override
     @Transactional(propagation = MANDATORY)
     public Attribute create() {
-        return createEntity();
+        JpaAttribute attribute = createEntity();
+        MetadataVersion.markChanged();
+        return attribute;
     }
 
     @Override
     @Transactional(propagation = MANDATORY)
     public void remove(Attribute attribute) {
         removeEntity((JpaAttribute) attribute);
+        MetadataVersion.markChanged();
     }
 }
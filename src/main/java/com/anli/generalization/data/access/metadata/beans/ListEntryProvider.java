@@ -1,18 +1,35 @@
 package com.anli.generalization.data.access.metadata.beans;
 
 import com.anli.generalization.data.access.beans.GenericProvider;
+import com.anli.generalization.data.entities.metadata.Attribute;
 import com.anli.generalization.data.entities.metadata.ListEntry;
+import com.anli.generalization.data.entities.metadata.jpa.JpaAttribute;
 import com.anli.generalization.data.entities.metadata.jpa.JpaListEntry;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshot;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import javax.inject.Inject;
 import javax.inject.Named;
 import org.springframework.transaction.annotation.Transactional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.springframework.transaction.annotation.Propagation.MANDATORY;
 
 @Named
 public class ListEntryProvider extends GenericProvider<JpaListEntry>
         implements com.anli.generalization.data.access.metadata.ListEntryProvider {
 
+    protected final MetadataCache metadataCache;
+
+    @Inject
+    public ListEntryProvider(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
     @Override
     protected Class<JpaListEntry> getEntityClass() {
         return JpaListEntry.class;
@@ -26,7 +43,9 @@ public class ListEntryProvider extends GenericProvider<JpaListEntry>
     @Override
     @Transactional(propagation = MANDATORY)
     public ListEntry create() {
-        return createEntity();
+        JpaListEntry entry = createEntity();
+        MetadataVersion.markChanged();
+        return entry;
     }
 
     @Override
@@ -35,9 +54,46 @@ public class ListEntryProvider extends GenericProvider<JpaListEntry>
         return getEntityById(id);
     }
 
+    @Transactional(propagation = MANDATORY)
+    public ListEntry getReadOnlyById(BigInteger id) {
+        return metadataCache.getSnapshot().getListEntry(id);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<ListEntry> getReadOnlyByIds(Collection<BigInteger> ids) {
+        checkArgument(ids != null, "Ids can't be null");
+        MetadataSnapshot metadata = metadataCache.getSnapshot();
+        List<ListEntry> result = new ArrayList<>(ids.size());
+        for (BigInteger id : ids) {
+            result.add(metadata.getListEntry(id));
+        }
+        return result;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public ListEntry findListEntry(Attribute attribute, String entryValue) {
+        checkArgument(attribute != null, "Attribute of list entry can not be null");
+        if (attribute instanceof JpaAttribute && ((JpaAttribute) attribute).isListEntriesInstantiated()) {
+            for (ListEntry candidate : attribute.getListEntries()) {
+                if (Objects.equals(entryValue, candidate.getEntryValue())) {
+                    return candidate;
+                }
+            }
+            return null;
+        }
+        ListEntry entry = metadataCache.getSnapshot().findListEntry(attribute.getId(), entryValue);
+        return entry != null ? getEntityById(entry.getId()) : null;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<ListEntry> getByIds(Collection<BigInteger> ids) {
+        return (List) getEntitiesByIds(ids);
+    }
+
     @Override
     @Transactional(propagation = MANDATORY)
     public void remove(ListEntry entry) {
         removeEntity((JpaListEntry) entry);
+        MetadataVersion.markChanged();
     }
 }
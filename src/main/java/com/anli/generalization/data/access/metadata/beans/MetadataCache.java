@@ -0,0 +1,142 @@
+package com.anli.generalization.data.access.metadata.beans;
+
+import com.anli.generalization.data.access.beans.JpaProvider;
+import com.anli.generalization.data.access.internal.TransactionResources;
+import com.anli.generalization.data.entities.metadata.AttributeType;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshot;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshotBuilder;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW;
+import static org.springframework.transaction.annotation.Propagation.MANDATORY;
+import static org.springframework.transaction.annotation.Propagation.REQUIRES_NEW;
+
+@Named
+public class MetadataCache extends JpaProvider {
+
+    protected static final String SELECT_OBJECT_TYPES = "select object_type_id, name, parent_type_id "
+            + "from object_types";
+    protected static final String SELECT_ATTRIBUTES = "select attribute_id, type, name, multiple, "
+            + "reference_type_id, object_type_id from attributes "
+            + "order by object_type_id, object_type_order";
+    protected static final String SELECT_LIST_ENTRIES = "select list_entry_id, entry_value, attribute_id "
+            + "from list_entries order by attribute_id, attribute_order";
+
+    protected final ReentrantLock loadLock = new ReentrantLock();
+    protected final TransactionTemplate loadTransaction;
+
+    protected volatile MetadataSnapshot snapshot;
+
+    @Inject
+    public MetadataCache(PlatformTransactionManager transactionManager) {
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public MetadataSnapshot getSnapshot() {
+        MetadataVersion.checkShared();
+        if (MetadataVersion.isChangedInTransaction()) {
+            return getTransactionSnapshot();
+        }
+        MetadataSnapshot current = snapshot;
+        if (current != null && current.getVersion() == MetadataVersion.get()) {
+            return current;
+        }
+        loadLock.lock();
+        try {
+            long version = MetadataVersion.get();
+            current = snapshot;
+            if (current != null && current.getVersion() == version) {
+                return current;
+            }
+            MetadataSnapshot loaded = loadShared(version);
+            if (MetadataVersion.isChangedInTransaction()) {
+                return getTransactionSnapshot();
+            }
+            if (version == MetadataVersion.get()) {
+                snapshot = loaded;
+            }
+            return loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @Transactional(propagation = REQUIRES_NEW)
+    public MetadataSnapshot preload() {
+        return getSnapshot();
+    }
+
+    public void invalidate() {
+        MetadataVersion.increment();
+    }
+
+    protected MetadataSnapshot getTransactionSnapshot() {
+        MetadataSnapshot current =
+                (MetadataSnapshot) TransactionResources.get(MetadataSnapshot.class);
+        if (current != null && current.getVersion() == MetadataVersion.get()) {
+            return current;
+        }
+        getManager().flush();
+        current = load(MetadataVersion.get());
+        TransactionResources.put(MetadataSnapshot.class, current);
+        return current;
+    }
+
+    protected MetadataSnapshot loadShared(final long version) {
+        return loadTransaction.execute(new TransactionCallback<MetadataSnapshot>() {
+
+            @Override
+            public MetadataSnapshot doInTransaction(TransactionStatus status) {
+                return load(version);
+            }
+        });
+    }
+
+    protected MetadataSnapshot load(long version) {
+        MetadataSnapshotBuilder builder = new MetadataSnapshotBuilder();
+        for (Object[] row : select(SELECT_OBJECT_TYPES)) {
+            builder.addObjectType(toBigInteger(row[0]), (String) row[1], toBigInteger(row[2]));
+        }
+        AttributeType[] types = AttributeType.values();
+        for (Object[] row : select(SELECT_ATTRIBUTES)) {
+            AttributeType type = row[1] != null ? types[((Number) row[1]).intValue()] : null;
+            builder.addAttribute(toBigInteger(row[0]), type, (String) row[2], toBoolean(row[3]),
+                    toBigInteger(row[4]), toBigInteger(row[5]));
+        }
+        for (Object[] row : select(SELECT_LIST_ENTRIES)) {
+            builder.addListEntry(toBigInteger(row[0]), (String) row[1], toBigInteger(row[2]));
+        }
+        return builder.build(version);
+    }
+
+    protected List<Object[]> select(String sql) {
+        return getManager().createNativeQuery(sql).getResultList();
+    }
+
+    protected BigInteger toBigInteger(Object value) {
+        if (value == null || value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+        return new BigInteger(value.toString());
+    }
+
+    protected boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value != null && ((Number) value).intValue() != 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.anli.generalization.data.access.metadata.beans;
+
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshot;
+import java.util.logging.Logger;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.logging.Level.INFO;
+import static java.util.logging.Level.WARNING;
+
+@Named
+public class MetadataPreloader implements ApplicationListener<ContextRefreshedEvent> {
+
+    public static final String PRELOAD = "generalization.metadata-preload";
+
+    public static final String NO_PRELOAD = "none";
+    public static final String SYNC_PRELOAD = "sync";
+    public static final String ASYNC_PRELOAD = "async";
+
+    protected static final String THREAD_NAME = "generalization-metadata-preload";
+
+    protected static final Logger logger = Logger.getLogger(MetadataPreloader.class.getName());
+
+    protected final MetadataCache metadataCache;
+    protected final EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    public MetadataPreloader(MetadataCache metadataCache, EntityManagerFactory entityManagerFactory) {
+        this.metadataCache = metadataCache;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        String mode = getMode();
+        if (SYNC_PRELOAD.equals(mode)) {
+            preload();
+        } else if (ASYNC_PRELOAD.equals(mode)) {
+            Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    preload();
+                }
+            }, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public void preload() {
+        long start = System.nanoTime();
+        MetadataSnapshot snapshot;
+        try {
+            snapshot = metadataCache.preload();
+        } catch (RuntimeException ex) {
+            logger.log(WARNING, "Metadata preload failed", ex);
+            return;
+        }
+        long elapsed = (System.nanoTime() - start) / 1000000;
+        logger.log(INFO, "Metadata preloaded in {0} ms: {1} object types, {2} attributes, {3} list entries",
+                new Object[]{elapsed, snapshot.getObjectTypes().size(), snapshot.getAttributes().size(),
+                    snapshot.getListEntries().size()});
+    }
+
+    protected String getMode() {
+        return parseMode(entityManagerFactory.getProperties().get(PRELOAD));
+    }
+
+    public static String parseMode(Object value) {
+        String mode = value != null ? value.toString().trim() : NO_PRELOAD;
+        checkArgument(NO_PRELOAD.equals(mode) || SYNC_PRELOAD.equals(mode) || ASYNC_PRELOAD.equals(mode),
+                "Unknown metadata preload mode: %s", mode);
+        return mode;
+    }
+}
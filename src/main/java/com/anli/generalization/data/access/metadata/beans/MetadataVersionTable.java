@@ -0,0 +1,84 @@
+package com.anli.generalization.data.access.metadata.beans;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.PersistenceException;
+import javax.sql.DataSource;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class MetadataVersionTable {
+
+    public static final String DEFAULT_METADATA_SET = "metadata";
+
+    protected static final String BUMP_VERSION = "insert into metadata_versions (metadata_set, version) "
+            + "values (?, last_insert_id(1)) on duplicate key update version = last_insert_id(version + 1)";
+    protected static final String SELECT_BUMPED_VERSION = "select last_insert_id()";
+    protected static final String SELECT_VERSION = "select version from metadata_versions "
+            + "where metadata_set = ?";
+
+    protected final DataSource dataSource;
+    protected final String metadataSet;
+    protected final long checkInterval;
+
+    protected final AtomicLong nextCheck = new AtomicLong();
+
+    protected final AtomicLong lastSeenVersion = new AtomicLong(-1);
+
+    public MetadataVersionTable(DataSource dataSource, String metadataSet, long checkInterval) {
+        checkArgument(checkInterval >= 0, "Metadata version check interval can not be negative");
+        this.dataSource = dataSource;
+        this.metadataSet = metadataSet;
+        this.checkInterval = checkInterval;
+    }
+
+    public void bump() {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement update = connection.prepareStatement(BUMP_VERSION)) {
+            update.setString(1, metadataSet);
+            update.executeUpdate();
+            long bumpedVersion = selectBumpedVersion(connection);
+            lastSeenVersion.compareAndSet(bumpedVersion - 1, bumpedVersion);
+        } catch (SQLException ex) {
+            throw new PersistenceException("Could not bump metadata version for " + metadataSet, ex);
+        }
+    }
+
+    public boolean checkChanged() {
+        long now = System.currentTimeMillis();
+        long next = nextCheck.get();
+        if (now < next || !nextCheck.compareAndSet(next, now + checkInterval)) {
+            return false;
+        }
+        long currentVersion = selectVersion();
+        long previousVersion = lastSeenVersion.getAndSet(currentVersion);
+        return previousVersion >= 0 && previousVersion != currentVersion;
+    }
+
+    public void expireCheck() {
+        nextCheck.set(0);
+    }
+
+    protected long selectBumpedVersion(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(SELECT_BUMPED_VERSION);
+                ResultSet resultSet = select.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    protected long selectVersion() {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement select = connection.prepareStatement(SELECT_VERSION)) {
+            select.setString(1, metadataSet);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        } catch (SQLException ex) {
+            throw new PersistenceException("Could not read metadata version for " + metadataSet, ex);
+        }
+    }
+}
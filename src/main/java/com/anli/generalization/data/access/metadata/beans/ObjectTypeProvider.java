@@ -3,16 +3,30 @@ package com.anli.generalization.data.access.metadata.beans;
 import com.anli.generalization.data.access.beans.GenericProvider;
 import com.anli.generalization.data.entities.metadata.ObjectType;
 import com.anli.generalization.data.entities.metadata.jpa.JpaObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshot;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.inject.Inject;
 import javax.inject.Named;
 import org.springframework.transaction.annotation.Transactional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.springframework.transaction.annotation.Propagation.MANDATORY;
 
 @Named
 public class ObjectTypeProvider extends GenericProvider<JpaObjectType>
         implements com.anli.generalization.data.access.metadata.ObjectTypeProvider {
 
+    protected final MetadataCache metadataCache;
+
+    @Inject
+    public ObjectTypeProvider(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
     @Override
     protected Class<JpaObjectType> getEntityClass() {
         return JpaObjectType.class;
@@ -27,6 +41,7 @@ public class ObjectTypeProvider extends GenericProvider<JpaObjectType>
     @Transactional(propagation = MANDATORY)
     public ObjectType create(ObjectType parentType) {
         JpaObjectType type = createEntity();
+        MetadataVersion.markChanged();
         if (parentType != null) {
             type.setParent(parentType);
         }
@@ -39,9 +54,49 @@ public class ObjectTypeProvider extends GenericProvider<JpaObjectType>
         return getEntityById(id);
     }
 
+    @Transactional(propagation = MANDATORY)
+    public ObjectType getReadOnlyById(BigInteger id) {
+        return metadataCache.getSnapshot().getObjectType(id);
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<ObjectType> getReadOnlyByIds(Collection<BigInteger> ids) {
+        checkArgument(ids != null, "Ids can't be null");
+        MetadataSnapshot metadata = metadataCache.getSnapshot();
+        List<ObjectType> result = new ArrayList<>(ids.size());
+        for (BigInteger id : ids) {
+            result.add(metadata.getObjectType(id));
+        }
+        return result;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public boolean isSubtype(ObjectType type, ObjectType ancestor) {
+        checkArgument(type != null && ancestor != null, "Compared types can't be null");
+        MetadataSnapshot metadata = metadataCache.getSnapshot();
+        if (metadata.getObjectType(type.getId()) != null
+                && metadata.getObjectType(ancestor.getId()) != null) {
+            return metadata.isSubtype(type.getId(), ancestor.getId());
+        }
+        ObjectType current = type;
+        while (current != null) {
+            if (ancestor.getId().equals(current.getId())) {
+                return true;
+            }
+            current = current.getParent();
+        }
+        return false;
+    }
+
+    @Transactional(propagation = MANDATORY)
+    public List<ObjectType> getByIds(Collection<BigInteger> ids) {
+        return (List) getEntitiesByIds(ids);
+    }
+
     @Override
     @Transactional(propagation = MANDATORY)
     public void remove(ObjectType type) {
         removeEntity((JpaObjectType) type);
+        MetadataVersion.markChanged();
     }
 }
@@ -0,0 +1,151 @@
+package com.anli.generalization.data.customization;
+
+import com.anli.generalization.data.access.metadata.beans.MetadataVersionTable;
+import com.anli.generalization.data.entities.jpa.JpaDataObject;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
+import com.anli.generalization.data.entities.parameter.jpa.ListValue;
+import com.anli.generalization.data.entities.parameter.jpa.Parameter;
+import com.anli.generalization.data.entities.parameter.jpa.ReferenceValue;
+import com.anli.generalization.data.sequencing.IdBlockAllocator;
+import com.anli.generalization.data.sequencing.IdGenerator;
+import com.anli.generalization.data.sequencing.IdGeneratorSequence;
+import com.anli.generalization.data.sequencing.NodeTimeIdGenerator;
+import com.anli.generalization.data.sequencing.PooledIdGenerator;
+import com.anli.generalization.data.sequencing.StripedIdGenerator;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.mappings.DatabaseMapping;
+import org.eclipse.persistence.mappings.ForeignReferenceMapping;
+import org.eclipse.persistence.sessions.Session;
+
+import static com.anli.generalization.data.access.metadata.beans.MetadataVersionTable.DEFAULT_METADATA_SET;
+import static com.anli.generalization.data.sequencing.IdBlockAllocator.DEFAULT_ENTITY_SET;
+import static com.google.common.base.Preconditions.checkState;
+
+public class JpaSessionCustomizer implements SessionCustomizer {
+
+    public static final String ID_STRATEGY = "generalization.id-generation.strategy";
+    public static final String ID_BLOCK_SIZE = "generalization.id-generation.block-size";
+    public static final String ID_DATA_SOURCE = "generalization.id-generation.data-source";
+    public static final String ID_ENTITY_SET = "generalization.id-generation.entity-set";
+    public static final String ID_STRIPES = "generalization.id-generation.stripes";
+    public static final String ID_NODE = "generalization.id-generation.node-id";
+    public static final String BATCH_FETCH = "generalization.batch-fetch";
+    public static final String METADATA_VERSIONS_DATA_SOURCE = "generalization.metadata-versions.data-source";
+    public static final String METADATA_VERSIONS_SET = "generalization.metadata-versions.set";
+    public static final String METADATA_VERSIONS_CHECK_INTERVAL =
+            "generalization.metadata-versions.check-interval";
+
+    public static final String TABLE_STRATEGY = "table";
+    public static final String POOLED_STRATEGY = "pooled";
+    public static final String STRIPED_STRATEGY = "striped";
+    public static final String NODE_STRATEGY = "node";
+
+    public static final String NO_BATCH_FETCH = "none";
+
+    protected static final int DEFAULT_BLOCK_SIZE = 50;
+    protected static final int DEFAULT_STRIPES = 8;
+    protected static final int DEFAULT_CHECK_INTERVAL = 1000;
+
+    @Override
+    public void customize(Session session) throws Exception {
+        customizeSequencing(session);
+        customizeBatchFetch(session);
+        customizeMetadataVersions(session);
+    }
+
+    protected void customizeMetadataVersions(Session session) throws NamingException {
+        String dataSourceName = getProperty(session, METADATA_VERSIONS_DATA_SOURCE, null);
+        if (dataSourceName == null) {
+            MetadataVersion.setVersionTable(null);
+            return;
+        }
+        DataSource dataSource = InitialContext.doLookup(dataSourceName);
+        MetadataVersion.setVersionTable(new MetadataVersionTable(dataSource,
+                getProperty(session, METADATA_VERSIONS_SET, DEFAULT_METADATA_SET),
+                getIntProperty(session, METADATA_VERSIONS_CHECK_INTERVAL, DEFAULT_CHECK_INTERVAL)));
+    }
+
+    protected void customizeBatchFetch(Session session) {
+        String type = getProperty(session, BATCH_FETCH, NO_BATCH_FETCH);
+        if (NO_BATCH_FETCH.equals(type)) {
+            return;
+        }
+        BatchFetchType batchType = BatchFetchType.valueOf(type.toUpperCase(Locale.ENGLISH));
+        setBatchFetch(session, JpaDataObject.class, "parameters", batchType);
+        setBatchFetch(session, Parameter.class, "parameterValues", batchType);
+        setBatchFetch(session, ListValue.class, "value", batchType);
+        setBatchFetch(session, ReferenceValue.class, "value", batchType);
+    }
+
+    protected void setBatchFetch(Session session, Class<?> entityClass, String attribute,
+            BatchFetchType type) {
+        ClassDescriptor descriptor = session.getDescriptor(entityClass);
+        checkState(descriptor != null, "No descriptor for %s", entityClass.getName());
+        DatabaseMapping mapping = descriptor.getMappingForAttributeName(attribute);
+        checkState(mapping instanceof ForeignReferenceMapping, "No relationship %s in %s",
+                attribute, entityClass.getName());
+        ForeignReferenceMapping relationship = (ForeignReferenceMapping) mapping;
+        relationship.useBatchReading();
+        relationship.setBatchFetchType(type);
+    }
+
+    protected void customizeSequencing(Session session) throws NamingException {
+        String strategy = getProperty(session, ID_STRATEGY, TABLE_STRATEGY);
+        if (TABLE_STRATEGY.equals(strategy)) {
+            return;
+        }
+        IdGenerator generator = createGenerator(session, strategy);
+        Set<String> sequenceNames = new HashSet<>();
+        for (ClassDescriptor descriptor : session.getDescriptors().values()) {
+            if (descriptor.usesSequenceNumbers()) {
+                sequenceNames.add(descriptor.getSequenceNumberName());
+            }
+        }
+        for (String sequenceName : sequenceNames) {
+            session.getLogin().addSequence(new IdGeneratorSequence(sequenceName, generator));
+        }
+    }
+
+    protected IdGenerator createGenerator(Session session, String strategy) throws NamingException {
+        if (NODE_STRATEGY.equals(strategy)) {
+            String node = getProperty(session, ID_NODE, null);
+            checkState(node != null, "Property %s is required for node id generation", ID_NODE);
+            return new NodeTimeIdGenerator(Long.parseLong(node));
+        }
+        String entitySet = getProperty(session, ID_ENTITY_SET, DEFAULT_ENTITY_SET);
+        int blockSize = getIntProperty(session, ID_BLOCK_SIZE, DEFAULT_BLOCK_SIZE);
+        if (POOLED_STRATEGY.equals(strategy)) {
+            return new PooledIdGenerator(getAllocator(session), entitySet, blockSize);
+        } else if (STRIPED_STRATEGY.equals(strategy)) {
+            return new StripedIdGenerator(getAllocator(session), entitySet, blockSize,
+                    getIntProperty(session, ID_STRIPES, DEFAULT_STRIPES));
+        }
+        throw new IllegalArgumentException("Unknown id generation strategy: " + strategy);
+    }
+
+    protected IdBlockAllocator getAllocator(Session session) throws NamingException {
+        String dataSourceName = getProperty(session, ID_DATA_SOURCE, null);
+        checkState(dataSourceName != null, "Property %s is required for table based id generation",
+                ID_DATA_SOURCE);
+        DataSource dataSource = InitialContext.doLookup(dataSourceName);
+        return new IdBlockAllocator(dataSource);
+    }
+
+    protected String getProperty(Session session, String name, String defaultValue) {
+        Object value = session.getProperty(name);
+        return value != null ? value.toString().trim() : defaultValue;
+    }
+
+    protected int getIntProperty(Session session, String name, int defaultValue) {
+        String value = getProperty(session, name, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -9,6 +9,7 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import org.eclipse.persistence.indirection.IndirectContainer;
 
 import static javax.persistence.FetchType.LAZY;
 
@@ -17,14 +18,16 @@ import static javax.persistence.FetchType.LAZY;
 @AttributeOverride(name = "id", column = @Column(name = "group_id"))
 public class ChildrenGroup extends JpaObject {
 
-    @OneToMany(fetch = LAZY)
-    @JoinColumn(name = "children_group_id", referencedColumnName = "group_id")
+    @OneToMany(mappedBy = "parentGroup", fetch = LAZY)
     protected Collection<JpaDataObject> children;
 
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "parent_id", referencedColumnName = "object_id")
     protected JpaDataObject parent;
 
+    @Column(name = "child_count")
+    protected long childCount;
+
     public ChildrenGroup() {
         this.children = new HashSet<>();
     }
@@ -33,6 +36,27 @@ public class ChildrenGroup extends JpaObject {
         return children;
     }
 
+    public boolean isChildrenInstantiated() {
+        return !(children instanceof IndirectContainer)
+                || ((IndirectContainer) children).isInstantiated();
+    }
+
+    public long getChildCount() {
+        return isChildrenInstantiated() ? children.size() : childCount;
+    }
+
+    public long getStoredChildCount() {
+        return childCount;
+    }
+
+    public void setStoredChildCount(long childCount) {
+        this.childCount = childCount;
+    }
+
+    public void changeChildCount(long delta) {
+        childCount = Math.max(0, childCount + delta);
+    }
+
     public JpaDataObject getParent() {
         return parent;
     }
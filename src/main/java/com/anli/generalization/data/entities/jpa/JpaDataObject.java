@@ -3,6 +3,7 @@ package com.anli.generalization.data.entities.jpa;
 import com.anli.generalization.data.entities.parameter.jpa.Parameter;
 import com.anli.generalization.data.entities.metadata.jpa.JpaObjectType;
 import com.anli.generalization.data.entities.metadata.jpa.JpaAttribute;
+import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
 import javax.persistence.AttributeOverride;
@@ -14,7 +15,6 @@ import javax.persistence.MapKeyJoinColumn;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
-import static javax.persistence.FetchType.EAGER;
 import static javax.persistence.FetchType.LAZY;
 
 @Entity(name = "DataObject")
@@ -32,6 +32,9 @@ public class JpaDataObject extends JpaObject {
     @JoinColumn(name = "object_type_id", referencedColumnName = "object_type_id")
     protected JpaObjectType objectType;
 
+    @Column(name = "object_type_id", insertable = false, updatable = false)
+    protected BigInteger objectTypeId;
+
     @OneToMany(fetch = LAZY, orphanRemoval = true)
     @JoinColumn(name = "object_id", referencedColumnName = "object_id")
     @MapKeyJoinColumn(name = "attribute_id", referencedColumnName = "attribute_id")
@@ -42,10 +45,13 @@ public class JpaDataObject extends JpaObject {
     @MapKeyJoinColumn(name = "object_type_id", referencedColumnName = "object_type_id")
     protected Map<JpaObjectType, ChildrenGroup> childrenGroups;
 
-    @ManyToOne(fetch = EAGER)
+    @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "children_group_id", referencedColumnName = "group_id")
     protected ChildrenGroup parentGroup;
 
+    @Column(name = "children_group_id", insertable = false, updatable = false)
+    protected BigInteger parentGroupId;
+
     public JpaDataObject() {
         this.childrenGroups = new HashMap<>();
         this.parameters = new HashMap<>();
@@ -73,6 +79,11 @@ public class JpaDataObject extends JpaObject {
 
     public void setObjectType(JpaObjectType objectType) {
         this.objectType = objectType;
+        this.objectTypeId = objectType != null ? objectType.getId() : null;
+    }
+
+    public BigInteger getObjectTypeId() {
+        return objectTypeId;
     }
 
     public Map<JpaAttribute, Parameter> getParameters() {
@@ -105,5 +116,10 @@ public class JpaDataObject extends JpaObject {
 
     public void setParentGroup(ChildrenGroup parentGroup) {
         this.parentGroup = parentGroup;
+        this.parentGroupId = parentGroup != null ? parentGroup.getId() : null;
+    }
+
+    public BigInteger getParentGroupId() {
+        return parentGroupId;
     }
 }
@@ -25,6 +25,10 @@ public abstract class JpaObject implements Serializable {
         return id;
     }
 
+    public void setId(BigInteger id) {
+        this.id = id;
+    }
+
     @Override
     public boolean equals(Object comparee) {
         if (getId() == null) {
@@ -5,22 +5,26 @@ import com.anli.generalization.data.entities.metadata.Attribute;
 import com.anli.generalization.data.entities.metadata.AttributeType;
 import com.anli.generalization.data.entities.metadata.ListEntry;
 import com.anli.generalization.data.entities.metadata.ObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
 import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Enumerated;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.OrderColumn;
 import javax.persistence.Table;
+import org.eclipse.persistence.indirection.IndirectContainer;
 
 import static javax.persistence.EnumType.ORDINAL;
 import static javax.persistence.FetchType.LAZY;
 
 @Entity(name = "Attribute")
+@EntityListeners(MetadataChangeListener.class)
 @Table(name = "attributes")
 @AttributeOverride(name = "id", column = @Column(name = "attribute_id"))
 public class JpaAttribute extends JpaObject implements Attribute {
@@ -56,6 +60,7 @@ public class JpaAttribute extends JpaObject implements Attribute {
     @Override
     public void setType(AttributeType type) {
         this.type = type;
+        MetadataVersion.markChanged();
     }
 
     @Override
@@ -66,6 +71,7 @@ public class JpaAttribute extends JpaObject implements Attribute {
     @Override
     public void setName(String name) {
         this.name = name;
+        MetadataVersion.markChanged();
     }
 
     @Override
@@ -76,6 +82,7 @@ public class JpaAttribute extends JpaObject implements Attribute {
     @Override
     public void setMultiple(boolean multiple) {
         this.multiple = multiple;
+        MetadataVersion.markChanged();
     }
 
     @Override
@@ -83,6 +90,11 @@ public class JpaAttribute extends JpaObject implements Attribute {
         return (List) listEntries;
     }
 
+    public boolean isListEntriesInstantiated() {
+        return !(listEntries instanceof IndirectContainer)
+                || ((IndirectContainer) listEntries).isInstantiated();
+    }
+
     @Override
     public ObjectType getReferenceType() {
         return referenceType;
@@ -91,5 +103,6 @@ public class JpaAttribute extends JpaObject implements Attribute {
     @Override
     public void setReferenceType(ObjectType referenceType) {
         this.referenceType = (JpaObjectType) referenceType;
+        MetadataVersion.markChanged();
     }
 }
@@ -2,12 +2,15 @@ package com.anli.generalization.data.entities.metadata.jpa;
 
 import com.anli.generalization.data.entities.jpa.JpaObject;
 import com.anli.generalization.data.entities.metadata.ListEntry;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Table;
 
 @Entity(name = "ListEntry")
+@EntityListeners(MetadataChangeListener.class)
 @Table(name = "list_entries")
 @AttributeOverride(name = "id", column = @Column(name = "list_entry_id"))
 public class JpaListEntry extends JpaObject implements ListEntry {
@@ -23,5 +26,6 @@ public class JpaListEntry extends JpaObject implements ListEntry {
     @Override
     public void setEntryValue(String entryValue) {
         this.entryValue = entryValue;
+        MetadataVersion.markChanged();
     }
 }
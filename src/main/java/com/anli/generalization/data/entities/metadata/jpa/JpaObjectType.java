@@ -3,6 +3,7 @@ package com.anli.generalization.data.entities.metadata.jpa;
 import com.anli.generalization.data.entities.jpa.JpaObject;
 import com.anli.generalization.data.entities.metadata.Attribute;
 import com.anli.generalization.data.entities.metadata.ObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -10,15 +11,18 @@ import java.util.List;
 import javax.persistence.AttributeOverride;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.OrderColumn;
 import javax.persistence.Table;
+import org.eclipse.persistence.indirection.IndirectContainer;
 
 import static javax.persistence.FetchType.LAZY;
 
 @Entity(name = "ObjectType")
+@EntityListeners(MetadataChangeListener.class)
 @Table(name = "object_types")
 @AttributeOverride(name = "id", column = @Column(name = "object_type_id"))
 public class JpaObjectType extends JpaObject implements ObjectType {
@@ -51,6 +55,7 @@ public class JpaObjectType extends JpaObject implements ObjectType {
     @Override
     public void setParent(ObjectType parent) {
         this.parent = (JpaObjectType) parent;
+        MetadataVersion.markChanged();
         if (parent != null) {
             parent.getChildren().add(this);
         }
@@ -69,10 +74,16 @@ public class JpaObjectType extends JpaObject implements ObjectType {
     @Override
     public void setName(String name) {
         this.name = name;
+        MetadataVersion.markChanged();
     }
 
     @Override
     public List<Attribute> getAttributes() {
         return (List) attributes;
     }
+
+    public boolean isAttributesInstantiated() {
+        return !(attributes instanceof IndirectContainer)
+                || ((IndirectContainer) attributes).isInstantiated();
+    }
 }
@@ -0,0 +1,16 @@
+package com.anli.generalization.data.entities.metadata.jpa;
+
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+public class MetadataChangeListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        MetadataVersion.markChanged();
+    }
+}
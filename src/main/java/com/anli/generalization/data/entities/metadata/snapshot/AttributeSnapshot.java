@@ -0,0 +1,109 @@
+package com.anli.generalization.data.entities.metadata.snapshot;
+
+import com.anli.generalization.data.entities.metadata.Attribute;
+import com.anli.generalization.data.entities.metadata.AttributeType;
+import com.anli.generalization.data.entities.metadata.ListEntry;
+import com.anli.generalization.data.entities.metadata.ObjectType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableList;
+
+public class AttributeSnapshot implements Attribute {
+
+    protected final BigInteger id;
+    protected final AttributeType type;
+    protected final String name;
+    protected final boolean multiple;
+    protected final List<ListEntry> listEntries;
+    protected final List<ListEntry> listEntriesView;
+
+    protected ObjectTypeSnapshot referenceType;
+    protected Set<BigInteger> listEntryIds = emptySet();
+    protected Map<String, ListEntrySnapshot> listEntriesByValue = emptyMap();
+
+    public AttributeSnapshot(BigInteger id, AttributeType type, String name, boolean multiple) {
+        this.id = id;
+        this.type = type;
+        this.name = name;
+        this.multiple = multiple;
+        this.listEntries = new ArrayList<>();
+        this.listEntriesView = unmodifiableList(listEntries);
+    }
+
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+
+    @Override
+    public AttributeType getType() {
+        return type;
+    }
+
+    @Override
+    public void setType(AttributeType type) {
+        throw new UnsupportedOperationException(MetadataSnapshot.READ_ONLY_ERROR);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void setName(String name) {
+        throw new UnsupportedOperationException(MetadataSnapshot.READ_ONLY_ERROR);
+    }
+
+    @Override
+    public boolean isMultiple() {
+        return multiple;
+    }
+
+    @Override
+    public void setMultiple(boolean multiple) {
+        throw new UnsupportedOperationException(MetadataSnapshot.READ_ONLY_ERROR);
+    }
+
+    @Override
+    public List<ListEntry> getListEntries() {
+        return listEntriesView;
+    }
+
+    public boolean containsListEntry(BigInteger listEntryId) {
+        return listEntryIds.contains(listEntryId);
+    }
+
+    public ListEntrySnapshot findListEntry(String entryValue) {
+        return listEntriesByValue.get(entryValue);
+    }
+
+    @Override
+    public ObjectType getReferenceType() {
+        return referenceType;
+    }
+
+    @Override
+    public void setReferenceType(ObjectType referenceType) {
+        throw new UnsupportedOperationException(MetadataSnapshot.READ_ONLY_ERROR);
+    }
+
+    @Override
+    public boolean equals(Object comparee) {
+        if (comparee == null || !getClass().equals(comparee.getClass())) {
+            return false;
+        }
+        return id.equals(((AttributeSnapshot) comparee).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
@@ -0,0 +1,43 @@
+package com.anli.generalization.data.entities.metadata.snapshot;
+
+import com.anli.generalization.data.entities.metadata.ListEntry;
+import java.math.BigInteger;
+
+public class ListEntrySnapshot implements ListEntry {
+
+    protected final BigInteger id;
+    protected final String entryValue;
+
+    public ListEntrySnapshot(BigInteger id, String entryValue) {
+        this.id = id;
+        this.entryValue = entryValue;
+    }
+
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+
+    @Override
+    public String getEntryValue() {
+        return entryValue;
+    }
+
+    @Override
+    public void setEntryValue(String entryValue) {
+        throw new UnsupportedOperationException(MetadataSnapshot.READ_ONLY_ERROR);
+    }
+
+    @Override
+    public boolean equals(Object comparee) {
+        if (comparee == null || !getClass().equals(comparee.getClass())) {
+            return false;
+        }
+        return id.equals(((ListEntrySnapshot) comparee).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
@@ -0,0 +1,70 @@
+package com.anli.generalization.data.entities.metadata.snapshot;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableCollection;
+
+public class MetadataSnapshot {
+
+    public static final String READ_ONLY_ERROR = "Metadata snapshot is read-only";
+
+    protected final long version;
+    protected final Map<BigInteger, ObjectTypeSnapshot> objectTypes;
+    protected final Map<BigInteger, AttributeSnapshot> attributes;
+    protected final Map<BigInteger, ListEntrySnapshot> listEntries;
+
+    protected MetadataSnapshot(long version, Map<BigInteger, ObjectTypeSnapshot> objectTypes,
+            Map<BigInteger, AttributeSnapshot> attributes, Map<BigInteger, ListEntrySnapshot> listEntries) {
+        this.version = version;
+        this.objectTypes = objectTypes;
+        this.attributes = attributes;
+        this.listEntries = listEntries;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ObjectTypeSnapshot getObjectType(BigInteger id) {
+        return objectTypes.get(id);
+    }
+
+    public AttributeSnapshot getAttribute(BigInteger id) {
+        return attributes.get(id);
+    }
+
+    public ListEntrySnapshot getListEntry(BigInteger id) {
+        return listEntries.get(id);
+    }
+
+    public boolean isSubtype(BigInteger typeId, BigInteger ancestorId) {
+        ObjectTypeSnapshot type = objectTypes.get(typeId);
+        ObjectTypeSnapshot ancestor = objectTypes.get(ancestorId);
+        return type != null && ancestor != null && type.isSubtypeOf(ancestor);
+    }
+
+    public ListEntrySnapshot findListEntry(BigInteger attributeId, String entryValue) {
+        AttributeSnapshot attribute = attributes.get(attributeId);
+        return attribute != null ? attribute.findListEntry(entryValue) : null;
+    }
+
+    public Set<BigInteger> getDescendantIds(BigInteger typeId) {
+        ObjectTypeSnapshot type = objectTypes.get(typeId);
+        return type != null ? type.getDescendantIds() : null;
+    }
+
+    public Collection<ObjectTypeSnapshot> getObjectTypes() {
+        return unmodifiableCollection(objectTypes.values());
+    }
+
+    public Collection<AttributeSnapshot> getAttributes() {
+        return unmodifiableCollection(attributes.values());
+    }
+
+    public Collection<ListEntrySnapshot> getListEntries() {
+        return unmodifiableCollection(listEntries.values());
+    }
+}
@@ -0,0 +1,172 @@
+package com.anli.generalization.data.entities.metadata.snapshot;
+
+import com.anli.generalization.data.entities.metadata.Attribute;
+import com.anli.generalization.data.entities.metadata.AttributeType;
+import com.anli.generalization.data.entities.metadata.ListEntry;
+import com.anli.generalization.data.entities.metadata.ObjectType;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+public class MetadataSnapshotBuilder {
+
+    protected final Map<BigInteger, ObjectTypeSnapshot> objectTypes = new LinkedHashMap<>();
+    protected final Map<BigInteger, AttributeSnapshot> attributes = new LinkedHashMap<>();
+    protected final Map<BigInteger, ListEntrySnapshot> listEntries = new LinkedHashMap<>();
+
+    protected final Map<BigInteger, BigInteger> typeParents = new HashMap<>();
+    protected final Map<BigInteger, BigInteger> referenceTypes = new HashMap<>();
+
+    protected boolean built;
+
+    public MetadataSnapshotBuilder addObjectType(BigInteger id, String name, BigInteger parentId) {
+        checkState(!built, "Snapshot is already built");
+        objectTypes.put(id, new ObjectTypeSnapshot(id, name));
+        if (parentId != null) {
+            typeParents.put(id, parentId);
+        }
+        return this;
+    }
+
+    public MetadataSnapshotBuilder addAttribute(BigInteger id, AttributeType type, String name,
+            boolean multiple, BigInteger referenceTypeId, BigInteger objectTypeId) {
+        checkState(!built, "Snapshot is already built");
+        AttributeSnapshot attribute = new AttributeSnapshot(id, type, name, multiple);
+        attributes.put(id, attribute);
+        if (referenceTypeId != null) {
+            referenceTypes.put(id, referenceTypeId);
+        }
+        ObjectTypeSnapshot objectType = objectTypeId != null ? objectTypes.get(objectTypeId) : null;
+        if (objectType != null) {
+            objectType.attributes.add(attribute);
+        }
+        return this;
+    }
+
+    public MetadataSnapshotBuilder addListEntry(BigInteger id, String entryValue, BigInteger attributeId) {
+        checkState(!built, "Snapshot is already built");
+        ListEntrySnapshot entry = new ListEntrySnapshot(id, entryValue);
+        listEntries.put(id, entry);
+        AttributeSnapshot attribute = attributeId != null ? attributes.get(attributeId) : null;
+        if (attribute != null) {
+            attribute.listEntries.add(entry);
+        }
+        return this;
+    }
+
+    public MetadataSnapshot build(long version) {
+        checkState(!built, "Snapshot is already built");
+        built = true;
+        for (Map.Entry<BigInteger, BigInteger> link : typeParents.entrySet()) {
+            ObjectTypeSnapshot type = objectTypes.get(link.getKey());
+            ObjectTypeSnapshot parent = objectTypes.get(link.getValue());
+            if (parent != null) {
+                type.parent = parent;
+                parent.children.add(type);
+            }
+        }
+        for (Map.Entry<BigInteger, BigInteger> link : referenceTypes.entrySet()) {
+            attributes.get(link.getKey()).referenceType = objectTypes.get(link.getValue());
+        }
+        for (AttributeSnapshot attribute : attributes.values()) {
+            indexListEntries(attribute);
+        }
+        numberTypeTree();
+        return new MetadataSnapshot(version, objectTypes, attributes, listEntries);
+    }
+
+    protected void resolveEffectiveAttributes(ObjectTypeSnapshot type) {
+        List<Attribute> inherited = type.parent != null ? type.parent.effectiveAttributes
+                : Collections.<Attribute>emptyList();
+        if (type.attributes.isEmpty()) {
+            type.effectiveAttributes = inherited;
+            type.effectiveAttributesByName = type.parent != null ? type.parent.effectiveAttributesByName
+                    : Collections.<String, AttributeSnapshot>emptyMap();
+            return;
+        }
+        List<Attribute> effectiveAttributes = new ArrayList<>(type.attributes.size() + inherited.size());
+        Map<String, AttributeSnapshot> attributesByName = new HashMap<>();
+        for (Attribute attribute : type.attributes) {
+            effectiveAttributes.add(attribute);
+            if (!attributesByName.containsKey(attribute.getName())) {
+                attributesByName.put(attribute.getName(), (AttributeSnapshot) attribute);
+            }
+        }
+        for (Attribute attribute : inherited) {
+            if (!attributesByName.containsKey(attribute.getName())) {
+                effectiveAttributes.add(attribute);
+                attributesByName.put(attribute.getName(), (AttributeSnapshot) attribute);
+            }
+        }
+        type.effectiveAttributes = unmodifiableList(effectiveAttributes);
+        type.effectiveAttributesByName = unmodifiableMap(attributesByName);
+    }
+
+    protected void indexListEntries(AttributeSnapshot attribute) {
+        if (attribute.listEntries.isEmpty()) {
+            return;
+        }
+        Set<BigInteger> listEntryIds = new HashSet<>();
+        Map<String, ListEntrySnapshot> listEntriesByValue = new HashMap<>();
+        for (ListEntry entry : attribute.listEntries) {
+            listEntryIds.add(entry.getId());
+            if (!listEntriesByValue.containsKey(entry.getEntryValue())) {
+                listEntriesByValue.put(entry.getEntryValue(), (ListEntrySnapshot) entry);
+            }
+        }
+        attribute.listEntryIds = unmodifiableSet(listEntryIds);
+        attribute.listEntriesByValue = unmodifiableMap(listEntriesByValue);
+    }
+
+    protected void numberTypeTree() {
+        List<ObjectTypeSnapshot> preorder = new ArrayList<>(objectTypes.size());
+        Deque<ObjectTypeSnapshot> stack = new ArrayDeque<>();
+        Deque<Iterator<ObjectType>> childIterators = new ArrayDeque<>();
+        for (ObjectTypeSnapshot root : objectTypes.values()) {
+            if (root.parent != null) {
+                continue;
+            }
+            enterType(root, preorder, stack, childIterators);
+            while (!stack.isEmpty()) {
+                Iterator<ObjectType> children = childIterators.peek();
+                if (children.hasNext()) {
+                    enterType((ObjectTypeSnapshot) children.next(), preorder, stack, childIterators);
+                } else {
+                    ObjectTypeSnapshot type = stack.pop();
+                    childIterators.pop();
+                    type.subtreeSize = preorder.size() - type.treeIndex;
+                    type.descendants = unmodifiableList(preorder.subList(type.treeIndex,
+                            preorder.size()));
+                    Set<BigInteger> descendantIds = new HashSet<>();
+                    for (ObjectTypeSnapshot descendant : type.descendants) {
+                        descendantIds.add(descendant.id);
+                    }
+                    type.descendantIds = unmodifiableSet(descendantIds);
+                }
+            }
+        }
+    }
+
+    protected void enterType(ObjectTypeSnapshot type, List<ObjectTypeSnapshot> preorder,
+            Deque<ObjectTypeSnapshot> stack, Deque<Iterator<ObjectType>> childIterators) {
+        type.treeIndex = preorder.size();
+        preorder.add(type);
+        resolveEffectiveAttributes(type);
+        stack.push(type);
+        childIterators.push(type.children.iterator());
+    }
+}
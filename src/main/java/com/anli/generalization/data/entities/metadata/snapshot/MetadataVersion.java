@@ -0,0 +1,67 @@
+package com.anli.generalization.data.entities.metadata.snapshot;
+
+import com.anli.generalization.data.access.internal.TransactionResources;
+import com.anli.generalization.data.access.metadata.beans.MetadataVersionTable;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.transaction.Synchronization;
+
+public class MetadataVersion {
+
+    private static final AtomicLong version = new AtomicLong();
+
+    private static volatile MetadataVersionTable versionTable;
+
+    public static long get() {
+        return version.get();
+    }
+
+    public static long increment() {
+        return version.incrementAndGet();
+    }
+
+    public static void setVersionTable(MetadataVersionTable table) {
+        versionTable = table;
+    }
+
+    public static void checkShared() {
+        MetadataVersionTable table = versionTable;
+        if (table != null && table.checkChanged()) {
+            increment();
+        }
+    }
+
+    public static void expireSharedCheck() {
+        MetadataVersionTable table = versionTable;
+        if (table != null) {
+            table.expireCheck();
+        }
+    }
+
+    public static void markChanged() {
+        increment();
+        if (!TransactionResources.isTransactionActive()
+                || TransactionResources.get(MetadataVersion.class) != null) {
+            return;
+        }
+        TransactionResources.put(MetadataVersion.class, Boolean.TRUE);
+        TransactionResources.registerSynchronization(new Synchronization() {
+
+            @Override
+            public void beforeCompletion() {
+                MetadataVersionTable table = versionTable;
+                if (table != null) {
+                    table.bump();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                increment();
+            }
+        });
+    }
+
+    public static boolean isChangedInTransaction() {
+        return TransactionResources.get(MetadataVersion.class) != null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.anli.generalization.data.entities.metadata.snapshot;
+
+import com.anli.generalization.data.entities.metadata.Attribute;
+import com.anli.generalization.data.entities.metadata.ObjectType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableCollection;
+import static java.util.Collections.unmodifiableList;
+
+public class ObjectTypeSnapshot implements ObjectType {
+
+    protected final BigInteger id;
+    protected final String name;
+    protected final Collection<ObjectType> children;
+    protected final Collection<ObjectType> childrenView;
+    protected final List<Attribute> attributes;
+    protected final List<Attribute> attributesView;
+
+    protected ObjectTypeSnapshot parent;
+    protected int treeIndex = -1;
+    protected int subtreeSize;
+    protected List<ObjectTypeSnapshot> descendants = emptyList();
+    protected Set<BigInteger> descendantIds = emptySet();
+    protected List<Attribute> effectiveAttributes = emptyList();
+    protected Map<String, AttributeSnapshot> effectiveAttributesByName = emptyMap();
+
+    public ObjectTypeSnapshot(BigInteger id, String name) {
+        this.id = id;
+        this.name = name;
+        this.children = new ArrayList<>();
+        this.childrenView = unmodifiableCollection(children);
+        this.attributes = new ArrayList<>();
+        this.attributesView = unmodifiableList(attributes);
+    }
+
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+
+    @Override
+    public ObjectType getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(ObjectType parent) {
+        throw new UnsupportedOperationException(MetadataSnapshot.READ_ONLY_ERROR);
+    }
+
+    @Override
+    public Collection<ObjectType> getChildren() {
+        return childrenView;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void setName(String name) {
+        throw new UnsupportedOperationException(MetadataSnapshot.READ_ONLY_ERROR);
+    }
+
+    @Override
+    public List<Attribute> getAttributes() {
+        return attributesView;
+    }
+
+    public boolean isSubtypeOf(ObjectTypeSnapshot ancestor) {
+        if (this == ancestor) {
+            return true;
+        }
+        return treeIndex >= 0 && ancestor.treeIndex >= 0 && ancestor.treeIndex <= treeIndex
+                && treeIndex < ancestor.treeIndex + ancestor.subtreeSize;
+    }
+
+    public List<ObjectTypeSnapshot> getDescendants() {
+        return descendants;
+    }
+
+    public Set<BigInteger> getDescendantIds() {
+        return descendantIds;
+    }
+
+    public List<Attribute> getEffectiveAttributes() {
+        return effectiveAttributes;
+    }
+
+    public AttributeSnapshot getEffectiveAttribute(String name) {
+        return effectiveAttributesByName.get(name);
+    }
+
+    @Override
+    public boolean equals(Object comparee) {
+        if (comparee == null || !getClass().equals(comparee.getClass())) {
+            return false;
+        }
+        return id.equals(((ObjectTypeSnapshot) comparee).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+}
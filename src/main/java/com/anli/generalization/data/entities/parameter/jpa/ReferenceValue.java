@@ -1,22 +1,27 @@
 package com.anli.generalization.data.entities.parameter.jpa;
 
 import com.anli.generalization.data.entities.jpa.JpaDataObject;
+import java.math.BigInteger;
+import javax.persistence.Column;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 
 import static com.anli.generalization.data.entities.metadata.jpa.JpaAttrTypes.REFERENCE_DISCRIMINATOR;
-import static javax.persistence.FetchType.EAGER;
+import static javax.persistence.FetchType.LAZY;
 
 @Entity(name = "ReferenceValue")
 @DiscriminatorValue(REFERENCE_DISCRIMINATOR)
 public class ReferenceValue extends ParameterValue<JpaDataObject> {
 
-    @ManyToOne(fetch = EAGER)
+    @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "reference_id", referencedColumnName = "object_id")
     protected JpaDataObject value;
 
+    @Column(name = "reference_id", insertable = false, updatable = false)
+    protected BigInteger referenceId;
+
     @Override
     public JpaDataObject getValue() {
         return value;
@@ -25,5 +30,10 @@ public class ReferenceValue extends ParameterValue<JpaDataObject> {
     @Override
     public void setValue(JpaDataObject value) {
         this.value = value;
+        this.referenceId = value != null ? value.getId() : null;
+    }
+
+    public BigInteger getReferenceId() {
+        return referenceId;
     }
 }
@@ -0,0 +1,36 @@
+package com.anli.generalization.data.entities.proxy;
+
+import com.anli.generalization.data.entities.DataObject;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+
+public class ChildrenPage implements Iterable<DataObject> {
+
+    protected final List<DataObject> objects;
+    protected final boolean hasMore;
+
+    public ChildrenPage(List<DataObject> objects, boolean hasMore) {
+        this.objects = unmodifiableList(objects);
+        this.hasMore = hasMore;
+    }
+
+    public List<DataObject> getObjects() {
+        return objects;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public BigInteger getNextAfterId() {
+        return hasMore ? objects.get(objects.size() - 1).getId() : null;
+    }
+
+    @Override
+    public Iterator<DataObject> iterator() {
+        return objects.iterator();
+    }
+}
@@ -3,17 +3,14 @@ package com.anli.generalization.data.entities.proxy;
 import com.anli.generalization.data.entities.DataObject;
 import com.anli.generalization.data.entities.jpa.ChildrenGroup;
 import com.anli.generalization.data.entities.jpa.JpaDataObject;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.NoSuchElementException;
-import javax.inject.Inject;
-import javax.inject.Named;
-import org.springframework.context.annotation.Scope;
 
-@Named
-@Scope("prototype")
 public class ChildrenProxyCollection implements Collection<DataObject> {
 
     protected static final String UNMODIFIABLE_ERROR =
@@ -22,25 +19,25 @@ public class ChildrenProxyCollection implements Collection<DataObject> {
     protected final DataObjectProxyBuilder proxyBuilder;
 
     protected LinkedList<ChildrenGroup> childrenGroups = new LinkedList<>();
+    protected boolean readOnly;
 
-    @Inject
     public ChildrenProxyCollection(DataObjectProxyBuilder proxyBuilder) {
         this.proxyBuilder = proxyBuilder;
     }
 
     @Override
     public int size() {
-        int size = 0;
+        long size = 0;
         for (ChildrenGroup group : childrenGroups) {
-            size += group.getChildren().size();
+            size += group.getChildCount();
         }
-        return size;
+        return (int) Math.min(size, Integer.MAX_VALUE);
     }
 
     @Override
     public boolean isEmpty() {
         for (ChildrenGroup group : childrenGroups) {
-            if (!group.getChildren().isEmpty()) {
+            if (group.getChildCount() > 0) {
                 return false;
             }
         }
@@ -52,8 +49,17 @@ public class ChildrenProxyCollection implements Collection<DataObject> {
         if (o == null || !(o instanceof DataObjectProxy)) {
             return false;
         }
+        return isMember(((DataObjectProxy) o).getProxiedObject());
+    }
+
+    protected boolean isMember(JpaDataObject object) {
+        BigInteger parentGroupId = object.getParentGroupId();
         for (ChildrenGroup group : childrenGroups) {
-            if (group.getChildren().contains(((DataObjectProxy) o).proxiedObject)) {
+            BigInteger groupId = group.getId();
+            if (groupId != null && groupId.equals(parentGroupId)) {
+                return true;
+            }
+            if (groupId == null && object.getParentGroup() == group) {
                 return true;
             }
         }
@@ -87,7 +93,20 @@ public class ChildrenProxyCollection implements Collection<DataObject> {
 
     @Override
     public boolean containsAll(Collection<?> c) {
-        return fetchAll().containsAll(c);
+        List<DataObjectProxy> proxies = new ArrayList<>(c.size());
+        for (Object o : c) {
+            if (o == null || !(o instanceof DataObjectProxy)) {
+                return false;
+            }
+            proxies.add((DataObjectProxy) o);
+        }
+        proxyBuilder.hydrate(proxies);
+        for (DataObjectProxy proxy : proxies) {
+            if (!isMember(proxy.getProxiedObject())) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -113,8 +132,8 @@ public class ChildrenProxyCollection implements Collection<DataObject> {
     protected Collection<DataObject> fetchAll() {
         ArrayList<DataObject> all = new ArrayList<>(size());
         for (ChildrenGroup group : childrenGroups) {
-            for (JpaDataObject object : group.getChildren()) {
-                all.add(proxyBuilder.getProxy(object));
+            for (JpaDataObject object : proxyBuilder.getGroupChildren(group)) {
+                all.add(proxyBuilder.getProxy(object, readOnly));
             }
         }
         return all;
@@ -124,6 +143,10 @@ public class ChildrenProxyCollection implements Collection<DataObject> {
         childrenGroups.add(group);
     }
 
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
     protected class ProxyIterator implements Iterator<DataObject> {
 
         protected Iterator<ChildrenGroup> groupIterator;
@@ -138,7 +161,7 @@ public class ChildrenProxyCollection implements Collection<DataObject> {
             while (objectIterator == null || !objectIterator.hasNext()) {
                 if (groupIterator.hasNext()) {
                     ChildrenGroup newGroup = groupIterator.next();
-                    objectIterator = newGroup.getChildren().iterator();
+                    objectIterator = proxyBuilder.getGroupChildren(newGroup).iterator();
                 } else {
                     return false;
                 }
@@ -151,7 +174,7 @@ public class ChildrenProxyCollection implements Collection<DataObject> {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            return proxyBuilder.getProxy(objectIterator.next());
+            return proxyBuilder.getProxy(objectIterator.next(), readOnly);
         }
 
         @Override
@@ -1,110 +1,252 @@
 package com.anli.generalization.data.entities.proxy;
 
+import com.anli.generalization.data.access.internal.beans.DataObjectProvider;
+import com.anli.generalization.data.access.internal.beans.MetadataResolver;
 import com.anli.generalization.data.access.internal.beans.SecondaryEntitesFactory;
+import com.anli.generalization.data.access.metadata.beans.MetadataCache;
 import com.anli.generalization.data.entities.DataObject;
 import com.anli.generalization.data.entities.jpa.ChildrenGroup;
 import com.anli.generalization.data.entities.jpa.JpaDataObject;
 import com.anli.generalization.data.entities.metadata.Attribute;
 import com.anli.generalization.data.entities.metadata.AttributeType;
+import com.anli.generalization.data.entities.metadata.ListEntry;
 import com.anli.generalization.data.entities.metadata.ObjectType;
 import com.anli.generalization.data.entities.metadata.jpa.JpaAttribute;
 import com.anli.generalization.data.entities.metadata.jpa.JpaListEntry;
 import com.anli.generalization.data.entities.metadata.jpa.JpaObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.AttributeSnapshot;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshot;
 import com.anli.generalization.data.entities.parameter.jpa.ListValue;
 import com.anli.generalization.data.entities.parameter.jpa.Parameter;
 import com.anli.generalization.data.entities.parameter.jpa.ParameterValue;
 import com.anli.generalization.data.entities.parameter.jpa.ReferenceValue;
 import com.google.common.base.Function;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import javax.inject.Inject;
-import javax.inject.Named;
-import org.springframework.context.annotation.Scope;
+import java.util.Map;
+import java.util.Set;
 
+import static com.anli.generalization.data.entities.metadata.AttributeType.DATE;
 import static com.anli.generalization.data.entities.metadata.AttributeType.LIST;
 import static com.anli.generalization.data.entities.metadata.AttributeType.REFERENCE;
+import static com.anli.generalization.data.entities.metadata.AttributeType.TEXT;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getFirst;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.emptyList;
 
-@Named
-@Scope("prototype")
 public class DataObjectProxy implements DataObject {
 
+    protected static final String READ_ONLY_ERROR = "Data Object is read-only";
+
     protected final DataObjectProxyBuilder proxyBuilder;
     protected final SecondaryEntitesFactory secondaryEntitiesFactory;
-    protected final ValueExtractor valueExtractor;
+    protected final DataObjectProvider dataObjectManager;
+    protected final MetadataResolver metadataResolver;
+    protected final MetadataCache metadataCache;
 
     protected JpaDataObject proxiedObject;
+    protected BigInteger proxiedId;
+    protected boolean readOnly;
 
-    @Inject
     public DataObjectProxy(DataObjectProxyBuilder proxyBuilder,
-            SecondaryEntitesFactory secondaryEntitiesFactory) {
+            SecondaryEntitesFactory secondaryEntitiesFactory, DataObjectProvider dataObjectManager,
+            MetadataResolver metadataResolver, MetadataCache metadataCache) {
         this.proxyBuilder = proxyBuilder;
         this.secondaryEntitiesFactory = secondaryEntitiesFactory;
-        this.valueExtractor = new ValueExtractor();
+        this.dataObjectManager = dataObjectManager;
+        this.metadataResolver = metadataResolver;
+        this.metadataCache = metadataCache;
     }
 
     public void setProxiedObject(JpaDataObject proxiedObject) {
         this.proxiedObject = proxiedObject;
+        this.proxiedId = null;
+    }
+
+    public void setProxiedId(BigInteger proxiedId) {
+        this.proxiedObject = null;
+        this.proxiedId = proxiedId;
     }
 
     public JpaDataObject getProxiedObject() {
+        if (proxiedObject == null && proxiedId != null) {
+            proxiedObject = readOnly ? dataObjectManager.getReadOnlyEntityById(proxiedId)
+                    : dataObjectManager.getEntityById(proxiedId);
+            checkState(proxiedObject != null, "Data object %s does not exist", proxiedId);
+            proxiedId = null;
+        }
         return proxiedObject;
     }
 
+    public boolean isHydrated() {
+        return proxiedObject != null;
+    }
+
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    protected void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException(READ_ONLY_ERROR);
+        }
+    }
+
     @Override
     public BigInteger getId() {
-        return proxiedObject.getId();
+        return proxiedObject != null ? proxiedObject.getId() : proxiedId;
     }
 
     @Override
     public String getName() {
-        return proxiedObject.getName();
+        return getProxiedObject().getName();
     }
 
     @Override
     public void setName(String name) {
-        proxiedObject.setName(name);
+        checkWritable();
+        getProxiedObject().setName(name);
     }
 
     @Override
     public String getDescription() {
-        return proxiedObject.getDescription();
+        return getProxiedObject().getDescription();
     }
 
     @Override
     public void setDescription(String description) {
-        proxiedObject.setDescription(description);
+        checkWritable();
+        getProxiedObject().setDescription(description);
     }
 
     @Override
     public ObjectType getObjectType() {
-        return proxiedObject.getObjectType();
+        if (readOnly) {
+            ObjectType cachedType =
+                    metadataCache.getSnapshot().getObjectType(getProxiedObject().getObjectTypeId());
+            if (cachedType != null) {
+                return cachedType;
+            }
+        }
+        return getProxiedObject().getObjectType();
     }
 
     @Override
     public DataObject getParent() {
-        ChildrenGroup parentGroup = proxiedObject.getParentGroup();
-        return parentGroup != null ? proxyBuilder.getProxy(parentGroup.getParent()) : null;
+        ChildrenGroup parentGroup = getProxiedObject().getParentGroup();
+        return parentGroup != null ? proxyBuilder.getProxy(parentGroup.getParent(), readOnly) : null;
+    }
+
+    public List<DataObject> getAncestors() {
+        List<JpaDataObject> ancestors = dataObjectManager.getAncestors(getId(), readOnly);
+        List<DataObject> proxies = new ArrayList<>(ancestors.size() + 1);
+        for (JpaDataObject ancestor : ancestors) {
+            proxies.add(proxyBuilder.getProxy(ancestor, readOnly));
+        }
+        return proxies;
+    }
+
+    public List<DataObject> getPath() {
+        List<DataObject> path = getAncestors();
+        path.add(this);
+        return path;
     }
 
     @Override
     public Collection<DataObject> getChildren(ObjectType objectType, boolean hierarchically) {
         checkArgument(objectType != null, "Object type for search cannot be null");
+        return proxyBuilder.getProxyCollection(collectGroups(objectType, hierarchically), readOnly);
+    }
+
+    public ChildrenPage getChildren(ObjectType objectType, boolean hierarchically, BigInteger afterId,
+            int limit) {
+        checkArgument(objectType != null, "Object type for search cannot be null");
+        checkArgument(limit > 0, "Page limit should be positive");
+        List<BigInteger> groupIds = getTypeGroupIds(objectType, hierarchically);
+        if (groupIds.isEmpty()) {
+            return new ChildrenPage(Collections.<DataObject>emptyList(), false);
+        }
+        List<JpaDataObject> children = dataObjectManager.getChildrenPage(groupIds, afterId, limit + 1,
+                readOnly);
+        boolean hasMore = children.size() > limit;
+        List<DataObject> page = new ArrayList<>(Math.min(children.size(), limit));
+        for (JpaDataObject child : hasMore ? children.subList(0, limit) : children) {
+            page.add(proxyBuilder.getProxy(child, readOnly));
+        }
+        return new ChildrenPage(page, hasMore);
+    }
+
+    public ChildrenPage getSortedChildren(ObjectType objectType, boolean hierarchically,
+            Attribute sortAttribute, BigInteger afterId, int limit) {
+        checkArgument(objectType != null, "Object type for search cannot be null");
+        checkArgument(limit > 0, "Page limit should be positive");
+        if (sortAttribute != null) {
+            checkArgument(!sortAttribute.isMultiple(), "Sort attribute should be single-valued");
+            checkArgument(TEXT.equals(sortAttribute.getType()) || DATE.equals(sortAttribute.getType()),
+                    "Sort attribute should be of text or date type");
+        }
+        List<BigInteger> groupIds = getTypeGroupIds(objectType, hierarchically);
+        if (groupIds.isEmpty()) {
+            return new ChildrenPage(Collections.<DataObject>emptyList(), false);
+        }
+        List<JpaDataObject> children = sortAttribute == null
+                ? dataObjectManager.getChildrenSortedByName(groupIds, afterId, limit + 1, readOnly)
+                : dataObjectManager.getChildrenSortedByValue(groupIds, sortAttribute.getId(),
+                        DATE.equals(sortAttribute.getType()), afterId, limit + 1, readOnly);
+        boolean hasMore = children.size() > limit;
+        List<DataObject> page = new ArrayList<>(Math.min(children.size(), limit));
+        for (JpaDataObject child : hasMore ? children.subList(0, limit) : children) {
+            page.add(proxyBuilder.getProxy(child, readOnly));
+        }
+        return new ChildrenPage(page, hasMore);
+    }
+
+    protected List<BigInteger> getTypeGroupIds(ObjectType objectType, boolean hierarchically) {
+        List<ChildrenGroup> groups = collectGroups(objectType, hierarchically);
+        List<BigInteger> groupIds = new ArrayList<>(groups.size());
+        for (ChildrenGroup group : groups) {
+            groupIds.add(group.getId());
+        }
+        return groupIds;
+    }
+
+    protected List<ChildrenGroup> collectGroups(ObjectType objectType, boolean hierarchically) {
         List<ChildrenGroup> groups = new LinkedList<>();
-        collectTypeGroups(objectType, groups, hierarchically);
-        return proxyBuilder.getProxyCollection(groups);
+        Set<BigInteger> typeIds = hierarchically
+                ? metadataCache.getSnapshot().getDescendantIds(objectType.getId()) : null;
+        if (typeIds != null) {
+            collectTypeGroups(typeIds, groups);
+        } else {
+            collectTypeGroups(objectType, groups, hierarchically);
+        }
+        return groups;
+    }
+
+    protected void collectTypeGroups(Set<BigInteger> typeIds, List<ChildrenGroup> groups) {
+        for (Map.Entry<JpaObjectType, ChildrenGroup> entry
+                : getProxiedObject().getChildrenGroups().entrySet()) {
+            if (typeIds.contains(entry.getKey().getId())) {
+                groups.add(entry.getValue());
+            }
+        }
     }
 
     protected void collectTypeGroups(ObjectType type, List<ChildrenGroup> groups,
             boolean hierarchically) {
-        ChildrenGroup group = proxiedObject.getChildrenGroup((JpaObjectType) type);
+        ChildrenGroup group = getProxiedObject().getChildrenGroup(metadataResolver.getObjectType(type));
         if (group != null) {
             groups.add(group);
         }
@@ -117,30 +259,76 @@ public class DataObjectProxy implements DataObject {
 
     @Override
     public void addChild(DataObject child) {
+        checkWritable();
         checkArgument(child != null, "Added child cannot be null");
+        ((DataObjectProxy) child).checkWritable();
         JpaDataObject childObject = ((DataObjectProxy) child).getProxiedObject();
-        JpaObjectType childType = childObject.getObjectType();
-        ChildrenGroup targetGroup = proxiedObject.getChildrenGroup(childType);
+        dataObjectManager.addToGroup(getTargetGroup(childObject.getObjectType()), childObject);
+    }
+
+    public void addChildren(Collection<DataObject> children) {
+        checkWritable();
+        checkArgument(children != null, "Added children cannot be null");
+        List<DataObjectProxy> proxies = new ArrayList<>(children.size());
+        for (DataObject child : children) {
+            checkArgument(child != null, "Added child cannot be null");
+            ((DataObjectProxy) child).checkWritable();
+            proxies.add((DataObjectProxy) child);
+        }
+        proxyBuilder.hydrate(proxies);
+        Map<JpaObjectType, List<JpaDataObject>> childrenByType = new LinkedHashMap<>();
+        for (DataObjectProxy proxy : proxies) {
+            JpaDataObject childObject = proxy.getProxiedObject();
+            List<JpaDataObject> typeChildren = childrenByType.get(childObject.getObjectType());
+            if (typeChildren == null) {
+                typeChildren = new ArrayList<>();
+                childrenByType.put(childObject.getObjectType(), typeChildren);
+            }
+            typeChildren.add(childObject);
+        }
+        for (Map.Entry<JpaObjectType, List<JpaDataObject>> typeChildren : childrenByType.entrySet()) {
+            dataObjectManager.moveToGroup(getTargetGroup(typeChildren.getKey()), typeChildren.getValue());
+        }
+    }
+
+    public void moveChildren(DataObject target, ObjectType objectType) {
+        checkWritable();
+        checkArgument(target != null, "Target object cannot be null");
+        checkArgument(objectType != null, "Object type of moved children cannot be null");
+        DataObjectProxy targetProxy = (DataObjectProxy) target;
+        targetProxy.checkWritable();
+        JpaObjectType childType = metadataResolver.getObjectType(objectType);
+        ChildrenGroup sourceGroup = getProxiedObject().getChildrenGroup(childType);
+        if (sourceGroup == null || targetProxy.getProxiedObject() == getProxiedObject()) {
+            return;
+        }
+        dataObjectManager.moveGroupChildren(sourceGroup, targetProxy.getTargetGroup(childType));
+        getProxiedObject().getChildrenGroups().remove(childType);
+        sourceGroup.setParent(null);
+    }
+
+    protected ChildrenGroup getTargetGroup(JpaObjectType childType) {
+        ChildrenGroup targetGroup = getProxiedObject().getChildrenGroup(childType);
         if (targetGroup == null) {
             targetGroup = secondaryEntitiesFactory.createChildrenGroup();
-            proxiedObject.setChildrenGroup(childType, targetGroup);
-            targetGroup.setParent(proxiedObject);
+            getProxiedObject().setChildrenGroup(childType, targetGroup);
+            targetGroup.setParent(getProxiedObject());
         }
-        targetGroup.getChildren().add(childObject);
-        childObject.setParentGroup(targetGroup);
+        return targetGroup;
     }
 
     @Override
     public void removeChild(DataObject child) {
+        checkWritable();
         checkArgument(child != null, "Removed child can not be null");
+        ((DataObjectProxy) child).checkWritable();
         JpaDataObject childObject = ((DataObjectProxy) child).getProxiedObject();
         JpaObjectType childType = childObject.getObjectType();
-        ChildrenGroup targetGroup = proxiedObject.getChildrenGroup(childType);
+        ChildrenGroup targetGroup = getProxiedObject().getChildrenGroup(childType);
         if (targetGroup != null) {
-            targetGroup.getChildren().remove(childObject);
-            childObject.setParentGroup(null);
-            if (targetGroup.getChildren().isEmpty()) {
-                proxiedObject.getChildrenGroups().remove(childType);
+            dataObjectManager.removeFromGroup(targetGroup, childObject);
+            if (targetGroup.getChildCount() == 0) {
+                getProxiedObject().getChildrenGroups().remove(childType);
                 targetGroup.setParent(null);
             }
         }
@@ -149,24 +337,25 @@ public class DataObjectProxy implements DataObject {
     @Override
     public <T> T getValue(Attribute attribute) {
         checkArgument(attribute != null, "Attribute of value can not be null");
-        Parameter parameter = proxiedObject.getParameter((JpaAttribute) attribute);
+        Parameter parameter = getProxiedObject().getParameter(metadataResolver.getAttribute(attribute));
         if (parameter == null) {
             return (T) (attribute.isMultiple() ? emptyList() : null);
         }
         List<ParameterValue> values = parameter.getParameterValues();
         if (attribute.isMultiple()) {
-            return (T) newArrayList(transform(values, valueExtractor));
+            return (T) newArrayList(transform(values, proxyBuilder.getValueExtractor(readOnly)));
         } else {
-            return (T) valueExtractor.apply(getFirst(values, null));
+            return (T) proxyBuilder.getValueExtractor(readOnly).apply(getFirst(values, null));
         }
     }
 
     @Override
     public <T> void setSingleValue(Attribute attribute, T value) {
+        checkWritable();
         checkArgument(attribute != null, "Attribute of value can not be null");
         if (value == null) {
-            JpaAttribute jpaAttribute = (JpaAttribute) attribute;
-            proxiedObject.getParameters().remove(jpaAttribute);
+            JpaAttribute jpaAttribute = metadataResolver.getAttribute(attribute);
+            getProxiedObject().getParameters().remove(jpaAttribute);
             return;
         }
         List<ParameterValue<T>> parameterValues = getParameterValuesForSet(attribute);
@@ -175,62 +364,99 @@ public class DataObjectProxy implements DataObject {
             parameterValue = secondaryEntitiesFactory.createParameterValue(attribute.getType());
             parameterValues.add(parameterValue);
         }
-        setParameterValue(attribute, parameterValue, value);
+        setParameterValue(attribute, parameterValue, value, getMetadataForSet(attribute));
         clearValuesTail(parameterValues.listIterator(1));
     }
 
-    protected <T> void setParameterValue(Attribute attribute, ParameterValue<T> parameterValue, T value) {
+    protected MetadataSnapshot getMetadataForSet(Attribute attribute) {
+        AttributeType attributeType = attribute.getType();
+        return REFERENCE.equals(attributeType) || LIST.equals(attributeType)
+                ? metadataCache.getSnapshot() : null;
+    }
+
+    protected <T> void setParameterValue(Attribute attribute, ParameterValue<T> parameterValue, T value,
+            MetadataSnapshot metadata) {
         AttributeType attributeType = attribute.getType();
         if (REFERENCE.equals(attributeType)) {
             setReferenceValue(attribute, (ReferenceValue) parameterValue,
-                    ((DataObjectProxy) value).getProxiedObject());
+                    getWritableObject((DataObjectProxy) value), metadata);
         } else if (LIST.equals(attributeType)) {
-            setListValue(attribute, (ListValue) parameterValue, (JpaListEntry) value);
+            setListValue(attribute, (ListValue) parameterValue,
+                    metadataResolver.getListEntry((ListEntry) value), metadata);
         } else {
             parameterValue.setValue(value);
         }
     }
 
+    protected JpaDataObject getWritableObject(DataObjectProxy proxy) {
+        return proxy.isReadOnly() ? dataObjectManager.getEntityById(proxy.getId())
+                : proxy.getProxiedObject();
+    }
+
     protected void setReferenceValue(Attribute attribute, ReferenceValue referenceValue,
-            JpaDataObject reference) {
-        ObjectType type = reference.getObjectType();
-        ObjectType expectedType = attribute.getReferenceType();
+            JpaDataObject reference, MetadataSnapshot metadata) {
+        AttributeSnapshot cachedAttribute = metadata.getAttribute(attribute.getId());
+        ObjectType expectedType = cachedAttribute != null
+                ? cachedAttribute.getReferenceType() : attribute.getReferenceType();
         if (expectedType != null) {
-            boolean match = false;
-            while (!match && type != null) {
-                if (expectedType.equals(type)) {
-                    match = true;
-                }
-                type = type.getParent();
-            }
-            checkArgument(match, "Referenced object does not belong to attribute reference type");
+            checkArgument(isSubtype(reference, expectedType, metadata),
+                    "Referenced object does not belong to attribute reference type");
         }
         referenceValue.setValue(reference);
     }
 
-    protected void setListValue(Attribute attribute, ListValue listValue, JpaListEntry listEntry) {
-        checkArgument(attribute.getListEntries().contains(listEntry),
+    protected boolean isSubtype(JpaDataObject reference, ObjectType expectedType, MetadataSnapshot metadata) {
+        BigInteger typeId = reference.getObjectTypeId();
+        BigInteger expectedId = expectedType.getId();
+        if (metadata.getObjectType(typeId) != null && metadata.getObjectType(expectedId) != null) {
+            return metadata.isSubtype(typeId, expectedId);
+        }
+        ObjectType type = reference.getObjectType();
+        while (type != null) {
+            if (expectedId.equals(type.getId())) {
+                return true;
+            }
+            type = type.getParent();
+        }
+        return false;
+    }
+
+    protected void setListValue(Attribute attribute, ListValue listValue, JpaListEntry listEntry,
+            MetadataSnapshot metadata) {
+        checkArgument(belongsToAttribute(listEntry, metadataResolver.getAttribute(attribute), metadata),
                 "List entry does not belong to attribute");
         listValue.setValue(listEntry);
     }
 
+    protected boolean belongsToAttribute(JpaListEntry listEntry, JpaAttribute attribute,
+            MetadataSnapshot metadata) {
+        AttributeSnapshot cachedAttribute = metadata != null ? metadata.getAttribute(attribute.getId()) : null;
+        if (cachedAttribute != null && !attribute.isListEntriesInstantiated()
+                && cachedAttribute.containsListEntry(listEntry.getId())) {
+            return true;
+        }
+        return attribute.getListEntries().contains(listEntry);
+    }
+
     @Override
     public <T> void setMultipleValues(Attribute attribute, List<T> values) {
+        checkWritable();
         checkArgument(attribute != null, "Attribute of value can not be null");
         checkArgument(attribute.isMultiple(),
                 "Attribute [%s, %s] is not multiple", attribute.getId(), attribute.getName());
         if (values == null || values.isEmpty()) {
-            JpaAttribute jpaAttribute = (JpaAttribute) attribute;
-            proxiedObject.getParameters().remove(jpaAttribute);
+            JpaAttribute jpaAttribute = metadataResolver.getAttribute(attribute);
+            getProxiedObject().getParameters().remove(jpaAttribute);
             return;
         }
+        MetadataSnapshot metadata = getMetadataForSet(attribute);
         List<ParameterValue<T>> parameterValues = getParameterValuesForSet(attribute);
         Iterator<ParameterValue<T>> parameterIterator = parameterValues.iterator();
         Iterator<T> valueIterator = values.iterator();
         while (parameterIterator.hasNext() && valueIterator.hasNext()) {
             ParameterValue<T> parameterValue = parameterIterator.next();
             T value = valueIterator.next();
-            setParameterValue(attribute, parameterValue, value);
+            setParameterValue(attribute, parameterValue, value, metadata);
         }
         if (parameterIterator.hasNext()) {
             clearValuesTail(parameterIterator);
@@ -238,13 +464,14 @@ public class DataObjectProxy implements DataObject {
         while (valueIterator.hasNext()) {
             ParameterValue<T> newValue =
                     secondaryEntitiesFactory.createParameterValue(attribute.getType());
-            setParameterValue(attribute, newValue, valueIterator.next());
+            setParameterValue(attribute, newValue, valueIterator.next(), metadata);
             parameterValues.add(newValue);
         }
     }
 
     @Override
     public <T> void addMultipleValue(Attribute attribute, T value) {
+        checkWritable();
         checkArgument(attribute != null, "Attribute of value can not be null");
         checkArgument(attribute.isMultiple(),
                 "Attribute [%s, %s] is not multiple", attribute.getId(), attribute.getName());
@@ -252,15 +479,15 @@ public class DataObjectProxy implements DataObject {
         List<ParameterValue<T>> parameterValues = getParameterValuesForSet(attribute);
         ParameterValue<T> parameterValue =
                 secondaryEntitiesFactory.createParameterValue(attribute.getType());
-        setParameterValue(attribute, parameterValue, value);
+        setParameterValue(attribute, parameterValue, value, getMetadataForSet(attribute));
         parameterValues.add(parameterValue);
     }
 
     protected <T> List<ParameterValue<T>> getParameterValuesForSet(Attribute attribute) {
-        Parameter parameter = proxiedObject.getParameter((JpaAttribute) attribute);
+        Parameter parameter = getProxiedObject().getParameter(metadataResolver.getAttribute(attribute));
         if (parameter == null) {
             parameter = secondaryEntitiesFactory.createParameter();
-            proxiedObject.setParameter((JpaAttribute) attribute, parameter);
+            getProxiedObject().setParameter(metadataResolver.getAttribute(attribute), parameter);
         }
         return parameter.getParameterValues();
     }
@@ -277,24 +504,40 @@ public class DataObjectProxy implements DataObject {
         if (!(obj instanceof DataObjectProxy)) {
             return false;
         }
-        return proxiedObject.equals(((DataObjectProxy) obj).proxiedObject);
+        BigInteger id = getId();
+        return id != null && id.equals(((DataObjectProxy) obj).getId());
     }
 
     @Override
     public int hashCode() {
-        return proxiedObject.hashCode();
+        BigInteger id = getId();
+        return id != null ? id.hashCode() : 0;
     }
 
-    protected class ValueExtractor implements Function<ParameterValue, Object> {
+    protected static class ValueExtractor implements Function<ParameterValue, Object> {
+
+        protected final DataObjectProxyBuilder proxyBuilder;
+        protected final boolean readOnly;
+
+        public ValueExtractor(DataObjectProxyBuilder proxyBuilder, boolean readOnly) {
+            this.proxyBuilder = proxyBuilder;
+            this.readOnly = readOnly;
+        }
 
         @Override
         public Object apply(ParameterValue input) {
             if (input == null) {
                 return null;
             }
+            if (input instanceof ReferenceValue) {
+                return proxyBuilder.getProxy(((ReferenceValue) input).getReferenceId(), readOnly);
+            }
             Object value = input.getValue();
             if (value != null && value instanceof JpaDataObject) {
-                value = proxyBuilder.getProxy((JpaDataObject) value);
+                value = proxyBuilder.getProxy((JpaDataObject) value, readOnly);
+            } else if (readOnly && value instanceof JpaListEntry) {
+                ListEntry cachedEntry = proxyBuilder.getMetadata().getListEntry(((JpaListEntry) value).getId());
+                value = cachedEntry != null ? cachedEntry : value;
             }
             return value;
         }
@@ -1,49 +1,180 @@
 package com.anli.generalization.data.entities.proxy;
 
+import com.anli.generalization.data.access.internal.TransactionResources;
+import com.anli.generalization.data.access.internal.beans.DataObjectProvider;
+import com.anli.generalization.data.access.internal.beans.MetadataResolver;
+import com.anli.generalization.data.access.internal.beans.SecondaryEntitesFactory;
+import com.anli.generalization.data.access.metadata.beans.MetadataCache;
 import com.anli.generalization.data.entities.DataObject;
 import com.anli.generalization.data.entities.jpa.ChildrenGroup;
 import com.anli.generalization.data.entities.jpa.JpaDataObject;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataSnapshot;
+import com.anli.generalization.data.entities.proxy.DataObjectProxy.ValueExtractor;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
 import javax.inject.Named;
-import javax.inject.Provider;
-import org.springframework.transaction.annotation.Transactional;
 
 import static java.util.Collections.emptyList;
-import static org.springframework.transaction.annotation.Propagation.MANDATORY;
 
 @Named
 public class DataObjectProxyBuilder {
 
-    protected final Provider<DataObjectProxy> proxyProvider;
-    protected final Provider<ChildrenProxyCollection> proxyCollectionProvider;
+    protected static final String IDENTITY_MAP = DataObjectProxyBuilder.class.getName() + ".identityMap";
+    protected static final String READ_ONLY_IDENTITY_MAP =
+            DataObjectProxyBuilder.class.getName() + ".readOnlyIdentityMap";
+
+    protected final SecondaryEntitesFactory secondaryEntitiesFactory;
+    protected final DataObjectProvider dataObjectManager;
+    protected final MetadataResolver metadataResolver;
+    protected final MetadataCache metadataCache;
+    protected final ValueExtractor valueExtractor;
+    protected final ValueExtractor readOnlyValueExtractor;
 
     @Inject
-    public DataObjectProxyBuilder(Provider<DataObjectProxy> proxyProvider,
-            Provider<ChildrenProxyCollection> proxyCollectionProvider) {
-        this.proxyProvider = proxyProvider;
-        this.proxyCollectionProvider = proxyCollectionProvider;
+    public DataObjectProxyBuilder(SecondaryEntitesFactory secondaryEntitiesFactory,
+            DataObjectProvider dataObjectManager, MetadataResolver metadataResolver,
+            MetadataCache metadataCache) {
+        this.secondaryEntitiesFactory = secondaryEntitiesFactory;
+        this.dataObjectManager = dataObjectManager;
+        this.metadataResolver = metadataResolver;
+        this.metadataCache = metadataCache;
+        this.valueExtractor = new ValueExtractor(this, false);
+        this.readOnlyValueExtractor = new ValueExtractor(this, true);
     }
 
-    @Transactional(propagation = MANDATORY)
     public DataObjectProxy getProxy(JpaDataObject dataObject) {
+        return getProxy(dataObject, false);
+    }
+
+    public DataObjectProxy getProxy(JpaDataObject dataObject, boolean readOnly) {
         if (dataObject == null) {
             return null;
         }
-        DataObjectProxy proxy = proxyProvider.get();
-        proxy.setProxiedObject(dataObject);
+        Map<BigInteger, DataObjectProxy> identityMap = getIdentityMap(readOnly);
+        BigInteger id = dataObject.getId();
+        DataObjectProxy proxy = identityMap != null && id != null ? identityMap.get(id) : null;
+        if (proxy == null) {
+            proxy = createProxy();
+            proxy.setReadOnly(readOnly);
+            if (identityMap != null && id != null) {
+                identityMap.put(id, proxy);
+            }
+        }
+        if (!proxy.isHydrated() || proxy.getProxiedObject() != dataObject) {
+            proxy.setProxiedObject(dataObject);
+        }
+        return proxy;
+    }
+
+    public DataObjectProxy getProxy(BigInteger id) {
+        return getProxy(id, false);
+    }
+
+    public DataObjectProxy getProxy(BigInteger id, boolean readOnly) {
+        if (id == null) {
+            return null;
+        }
+        Map<BigInteger, DataObjectProxy> identityMap = getIdentityMap(readOnly);
+        DataObjectProxy proxy = identityMap != null ? identityMap.get(id) : null;
+        if (proxy == null) {
+            proxy = createProxy();
+            proxy.setProxiedId(id);
+            proxy.setReadOnly(readOnly);
+            if (identityMap != null) {
+                identityMap.put(id, proxy);
+            }
+        }
         return proxy;
     }
 
-    @Transactional(propagation = MANDATORY)
     public Collection<DataObject> getProxyCollection(Collection<ChildrenGroup> groups) {
+        return getProxyCollection(groups, false);
+    }
+
+    public Collection<DataObject> getProxyCollection(Collection<ChildrenGroup> groups,
+            boolean readOnly) {
         if (groups == null || groups.isEmpty()) {
             return emptyList();
         }
-        ChildrenProxyCollection collection = proxyCollectionProvider.get();
+        ChildrenProxyCollection collection = new ChildrenProxyCollection(this);
+        collection.setReadOnly(readOnly);
         for (ChildrenGroup group : groups) {
             collection.addChildrenGroup(group);
         }
         return collection;
     }
+
+    public MetadataSnapshot getMetadata() {
+        return metadataCache.getSnapshot();
+    }
+
+    public Collection<JpaDataObject> getGroupChildren(ChildrenGroup group) {
+        return dataObjectManager.getChildren(group);
+    }
+
+    public void hydrate(Collection<DataObjectProxy> proxies) {
+        hydrate(proxies, false);
+        hydrate(proxies, true);
+    }
+
+    protected void hydrate(Collection<DataObjectProxy> proxies, boolean readOnly) {
+        List<DataObjectProxy> pending = new ArrayList<>();
+        List<BigInteger> ids = new ArrayList<>();
+        for (DataObjectProxy proxy : proxies) {
+            if (!proxy.isHydrated() && proxy.isReadOnly() == readOnly) {
+                pending.add(proxy);
+                ids.add(proxy.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<JpaDataObject> entities = readOnly ? dataObjectManager.getReadOnlyEntitiesByIds(ids)
+                : dataObjectManager.getEntitiesByIds(ids);
+        for (int i = 0; i < pending.size(); i++) {
+            JpaDataObject entity = entities.get(i);
+            if (entity != null) {
+                pending.get(i).setProxiedObject(entity);
+            }
+        }
+    }
+
+    public void evictProxies(Collection<BigInteger> ids) {
+        if (!TransactionResources.isTransactionActive()) {
+            return;
+        }
+        for (String key : new String[]{IDENTITY_MAP, READ_ONLY_IDENTITY_MAP}) {
+            Map<BigInteger, DataObjectProxy> identityMap = (Map) TransactionResources.get(key);
+            if (identityMap != null) {
+                identityMap.keySet().removeAll(ids);
+            }
+        }
+    }
+
+    protected Map<BigInteger, DataObjectProxy> getIdentityMap(boolean readOnly) {
+        if (!TransactionResources.isTransactionActive()) {
+            return null;
+        }
+        String key = readOnly ? READ_ONLY_IDENTITY_MAP : IDENTITY_MAP;
+        Map<BigInteger, DataObjectProxy> identityMap = (Map) TransactionResources.get(key);
+        if (identityMap == null) {
+            identityMap = new HashMap<>();
+            TransactionResources.put(key, identityMap);
+        }
+        return identityMap;
+    }
+
+    protected DataObjectProxy createProxy() {
+        return new DataObjectProxy(this, secondaryEntitiesFactory, dataObjectManager,
+                metadataResolver, metadataCache);
+    }
+
+    protected ValueExtractor getValueExtractor(boolean readOnly) {
+        return readOnly ? readOnlyValueExtractor : valueExtractor;
+    }
 }
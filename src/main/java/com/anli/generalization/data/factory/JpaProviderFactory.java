@@ -1,10 +1,11 @@
 package com.anli.generalization.data.factory;
 
 import com.anli.generalization.data.ProviderFactory;
-import com.anli.generalization.data.access.DataObjectProvider;
-import com.anli.generalization.data.access.metadata.AttributeProvider;
-import com.anli.generalization.data.access.metadata.ListEntryProvider;
-import com.anli.generalization.data.access.metadata.ObjectTypeProvider;
+import com.anli.generalization.data.access.beans.DataObjectProxyProvider;
+import com.anli.generalization.data.access.metadata.beans.AttributeProvider;
+import com.anli.generalization.data.access.metadata.beans.ListEntryProvider;
+import com.anli.generalization.data.access.metadata.beans.MetadataPreloader;
+import com.anli.generalization.data.access.metadata.beans.ObjectTypeProvider;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 public class JpaProviderFactory implements ProviderFactory {
@@ -22,8 +23,8 @@ public class JpaProviderFactory implements ProviderFactory {
     }
 
     @Override
-    public DataObjectProvider getDataObjectProvider() {
-        return getBean(DataObjectProvider.class);
+    public DataObjectProxyProvider getDataObjectProvider() {
+        return getBean(DataObjectProxyProvider.class);
     }
 
     @Override
@@ -41,6 +42,10 @@ public class JpaProviderFactory implements ProviderFactory {
         return getBean(ListEntryProvider.class);
     }
 
+    public MetadataPreloader getMetadataPreloader() {
+        return getBean(MetadataPreloader.class);
+    }
+
     protected <T> T getBean(Class<T> clazz) {
         return springContext.getBean(clazz);
     }
@@ -0,0 +1,135 @@
+package com.anli.generalization.data.sequencing;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.persistence.PersistenceException;
+import javax.sql.DataSource;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class IdBlockAllocator {
+
+    public static final String DEFAULT_ENTITY_SET = "data";
+
+    protected static final String UPDATE_LAST_ID = "update id_generation_sequences "
+            + "set last_id = last_id + ? where entity_set = ?";
+    protected static final String SELECT_LAST_ID = "select last_id from id_generation_sequences "
+            + "where entity_set = ?";
+    protected static final String SELECT_LAST_ID_FOR_UPDATE = SELECT_LAST_ID + " for update";
+    protected static final String INSERT_STRIPE_COUNT = "insert ignore into id_generation_sequences "
+            + "(entity_set, last_id) values (?, ?)";
+    protected static final String INSERT_STRIPE = "insert ignore into id_generation_sequences "
+            + "(entity_set, last_id) select ?, floor(last_id / ?) + 1 from id_generation_sequences "
+            + "where entity_set = ?";
+    protected static final String STRIPE_COUNT_SUFFIX = "_stripes";
+
+    protected final DataSource dataSource;
+
+    public IdBlockAllocator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public IdRange allocate(String entitySet, int size) {
+        checkArgument(size > 0, "Allocated block size should be positive");
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                IdRange range = reserve(connection, entitySet, size);
+                connection.commit();
+                return range;
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException ex) {
+            throw new PersistenceException("Could not allocate ids for entity set " + entitySet, ex);
+        }
+    }
+
+    public void initializeStripes(String entitySet, int stripeCount) {
+        checkArgument(stripeCount > 0, "Stripe count should be positive");
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                String stripeCountSet = entitySet + STRIPE_COUNT_SUFFIX;
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_STRIPE_COUNT)) {
+                    insert.setString(1, stripeCountSet);
+                    insert.setInt(2, stripeCount);
+                    insert.executeUpdate();
+                }
+                BigInteger storedCount = selectLastId(connection, SELECT_LAST_ID_FOR_UPDATE, stripeCountSet);
+                if (storedCount.intValue() != stripeCount) {
+                    throw new PersistenceException("Entity set " + entitySet + " is split into "
+                            + storedCount + " id stripes, not " + stripeCount);
+                }
+                try (PreparedStatement insert = connection.prepareStatement(INSERT_STRIPE)) {
+                    for (int i = 0; i < stripeCount; i++) {
+                        insert.setString(1, getStripeEntitySet(entitySet, i));
+                        insert.setInt(2, stripeCount);
+                        insert.setString(3, entitySet);
+                        insert.executeUpdate();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException ex) {
+            throw new PersistenceException("Could not initialize id stripes for entity set " + entitySet, ex);
+        }
+    }
+
+    public void checkNotStriped(String entitySet) {
+        try (Connection connection = dataSource.getConnection()) {
+            BigInteger storedCount = selectLastId(connection, SELECT_LAST_ID, entitySet + STRIPE_COUNT_SUFFIX);
+            if (storedCount != null) {
+                throw new PersistenceException("Entity set " + entitySet + " is split into "
+                        + storedCount + " id stripes and can't be allocated as a single sequence");
+            }
+        } catch (SQLException ex) {
+            throw new PersistenceException("Could not check id stripes for entity set " + entitySet, ex);
+        }
+    }
+
+    public static String getStripeEntitySet(String entitySet, int index) {
+        return entitySet + "_" + index;
+    }
+
+    public static IdRange reserve(Connection connection, String entitySet, int size) throws SQLException {
+        checkArgument(size > 0, "Reserved block size should be positive");
+        BigInteger last = updateAndSelect(connection, entitySet, size);
+        return new IdRange(last.subtract(BigInteger.valueOf(size - 1)), size);
+    }
+
+    protected static BigInteger updateAndSelect(Connection connection, String entitySet, int size)
+            throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_LAST_ID)) {
+            update.setLong(1, size);
+            update.setString(2, entitySet);
+            if (update.executeUpdate() == 0) {
+                throw new PersistenceException("No id generation sequence for entity set " + entitySet);
+            }
+        }
+        return selectLastId(connection, SELECT_LAST_ID, entitySet);
+    }
+
+    protected static BigInteger selectLastId(Connection connection, String sql, String entitySet)
+            throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(sql)) {
+            select.setString(1, entitySet);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getBigDecimal(1).toBigIntegerExact() : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.anli.generalization.data.sequencing;
+
+import java.math.BigInteger;
+import java.util.List;
+
+public interface IdGenerator {
+
+    BigInteger nextId();
+
+    List<BigInteger> reserveIds(int count);
+}
@@ -0,0 +1,54 @@
+package com.anli.generalization.data.sequencing;
+
+import java.util.Vector;
+import org.eclipse.persistence.internal.databaseaccess.Accessor;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.sequencing.Sequence;
+
+public class IdGeneratorSequence extends Sequence {
+
+    protected final IdGenerator generator;
+
+    public IdGeneratorSequence(String name, IdGenerator generator) {
+        super(name, 1);
+        this.generator = generator;
+    }
+
+    public IdGenerator getGenerator() {
+        return generator;
+    }
+
+    @Override
+    public Object getGeneratedValue(Accessor accessor, AbstractSession writeSession, String seqName) {
+        return generator.nextId();
+    }
+
+    @Override
+    public Vector getGeneratedVector(Accessor accessor, AbstractSession writeSession, String seqName,
+            int size) {
+        return new Vector<>(generator.reserveIds(size));
+    }
+
+    @Override
+    public boolean shouldAcquireValueAfterInsert() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldUseTransaction() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldUsePreallocation() {
+        return false;
+    }
+
+    @Override
+    public void onConnect() {
+    }
+
+    @Override
+    public void onDisconnect() {
+    }
+}
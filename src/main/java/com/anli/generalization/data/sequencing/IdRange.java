@@ -0,0 +1,42 @@
+package com.anli.generalization.data.sequencing;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+public class IdRange extends AbstractList<BigInteger> {
+
+    protected final BigInteger first;
+    protected final int size;
+    protected final BigInteger step;
+
+    public IdRange(BigInteger first, int size) {
+        this(first, size, 1);
+    }
+
+    public IdRange(BigInteger first, int size, int step) {
+        this.first = first;
+        this.size = size;
+        this.step = BigInteger.valueOf(step);
+    }
+
+    public BigInteger getFirst() {
+        return first;
+    }
+
+    public BigInteger getLast() {
+        return get(size - 1);
+    }
+
+    @Override
+    public BigInteger get(int index) {
+        checkElementIndex(index, size);
+        return first.add(step.multiply(BigInteger.valueOf(index)));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
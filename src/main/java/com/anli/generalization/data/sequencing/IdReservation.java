@@ -0,0 +1,18 @@
+package com.anli.generalization.data.sequencing;
+
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.List;
+
+public class IdReservation {
+
+    protected final Iterator<BigInteger> ids;
+
+    public IdReservation(List<BigInteger> ids) {
+        this.ids = ids.iterator();
+    }
+
+    public BigInteger nextId() {
+        return ids.hasNext() ? ids.next() : null;
+    }
+}
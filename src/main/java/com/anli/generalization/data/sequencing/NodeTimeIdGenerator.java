@@ -0,0 +1,63 @@
+package com.anli.generalization.data.sequencing;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class NodeTimeIdGenerator implements IdGenerator {
+
+    public static final long EPOCH = 1420070400000L;
+
+    protected static final int NODE_BITS = 9;
+    protected static final int SEQUENCE_BITS = 12;
+    protected static final int TIMESTAMP_BITS = 41;
+    protected static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    protected static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    protected static final long MARKER = 1L << (TIMESTAMP_BITS + NODE_BITS + SEQUENCE_BITS);
+
+    protected final long node;
+
+    protected long lastTimestamp = -1;
+    protected long sequence;
+
+    public NodeTimeIdGenerator(long node) {
+        checkArgument(node >= 0 && node <= MAX_NODE, "Node id should be between 0 and %s", MAX_NODE);
+        this.node = node;
+    }
+
+    @Override
+    public synchronized BigInteger nextId() {
+        return BigInteger.valueOf(generate());
+    }
+
+    @Override
+    public synchronized List<BigInteger> reserveIds(int count) {
+        checkArgument(count > 0, "Reserved id count should be positive");
+        List<BigInteger> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(BigInteger.valueOf(generate()));
+        }
+        return ids;
+    }
+
+    protected long generate() {
+        long timestamp = currentTimestamp();
+        if (timestamp > lastTimestamp) {
+            lastTimestamp = timestamp;
+            sequence = 0;
+        } else if (sequence < MAX_SEQUENCE) {
+            sequence++;
+        } else {
+            lastTimestamp++;
+            sequence = 0;
+        }
+        return MARKER | (lastTimestamp << (NODE_BITS + SEQUENCE_BITS))
+                | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    protected long currentTimestamp() {
+        return System.currentTimeMillis() - EPOCH;
+    }
+}
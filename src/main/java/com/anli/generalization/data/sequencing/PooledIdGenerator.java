@@ -0,0 +1,47 @@
+package com.anli.generalization.data.sequencing;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class PooledIdGenerator implements IdGenerator {
+
+    protected final IdBlockAllocator allocator;
+    protected final String entitySet;
+    protected final int blockSize;
+
+    protected volatile boolean checked;
+    protected IdRange block;
+    protected int position;
+
+    public PooledIdGenerator(IdBlockAllocator allocator, String entitySet, int blockSize) {
+        checkArgument(blockSize > 0, "Block size should be positive");
+        this.allocator = allocator;
+        this.entitySet = entitySet;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public synchronized BigInteger nextId() {
+        if (block == null || position >= block.size()) {
+            block = allocate(blockSize);
+            position = 0;
+        }
+        return block.get(position++);
+    }
+
+    @Override
+    public List<BigInteger> reserveIds(int count) {
+        checkArgument(count > 0, "Reserved id count should be positive");
+        return allocate(count);
+    }
+
+    protected IdRange allocate(int size) {
+        if (!checked) {
+            allocator.checkNotStriped(entitySet);
+            checked = true;
+        }
+        return allocator.allocate(entitySet, size);
+    }
+}
@@ -0,0 +1,86 @@
+package com.anli.generalization.data.sequencing;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class StripedIdGenerator implements IdGenerator {
+
+    protected final IdBlockAllocator allocator;
+    protected final String entitySet;
+    protected final int blockSize;
+    protected final Stripe[] stripes;
+
+    protected volatile boolean initialized;
+
+    public StripedIdGenerator(IdBlockAllocator allocator, String entitySet, int blockSize,
+            int stripeCount) {
+        checkArgument(blockSize > 0, "Block size should be positive");
+        checkArgument(stripeCount > 0, "Stripe count should be positive");
+        this.allocator = allocator;
+        this.entitySet = entitySet;
+        this.blockSize = blockSize;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i);
+        }
+    }
+
+    @Override
+    public BigInteger nextId() {
+        return getCurrentStripe().nextId();
+    }
+
+    @Override
+    public List<BigInteger> reserveIds(int count) {
+        checkArgument(count > 0, "Reserved id count should be positive");
+        return getCurrentStripe().allocate(count);
+    }
+
+    protected void initialize() {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (!initialized) {
+                allocator.initializeStripes(entitySet, stripes.length);
+                initialized = true;
+            }
+        }
+    }
+
+    protected Stripe getCurrentStripe() {
+        return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+    protected class Stripe {
+
+        protected final int index;
+        protected final String stripeEntitySet;
+
+        protected IdRange block;
+        protected int position;
+
+        public Stripe(int index) {
+            this.index = index;
+            this.stripeEntitySet = IdBlockAllocator.getStripeEntitySet(entitySet, index);
+        }
+
+        public synchronized BigInteger nextId() {
+            if (block == null || position >= block.size()) {
+                block = allocate(blockSize);
+                position = 0;
+            }
+            return block.get(position++);
+        }
+
+        public IdRange allocate(int size) {
+            initialize();
+            IdRange counters = allocator.allocate(stripeEntitySet, size);
+            BigInteger stripeCount = BigInteger.valueOf(stripes.length);
+            BigInteger first = counters.getFirst().multiply(stripeCount).add(BigInteger.valueOf(index));
+            return new IdRange(first, size, stripes.length);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+alter table children_groups
+    add column child_count bigint(20) unsigned not null default 0;
+
+update children_groups g set child_count =
+    (select count(*) from data_objects o where o.children_group_id = g.group_id);
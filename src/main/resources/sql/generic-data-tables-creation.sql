@@ -1,8 +1,10 @@
+-- requires MySQL 8.0 or later: ancestor lookups use recursive common table expressions
+
 set foreign_key_checks = 0;
 
 drop table if exists 
     parameter_values, parameters, children_groups, 
-    data_objects, list_entries, attributes, object_types;
+    data_objects, list_entries, attributes, object_types, metadata_versions;
 
 set foreign_key_checks = 1;
 
@@ -52,7 +54,8 @@ create table data_objects (
     children_group_id bigint(20) unsigned default null,
     primary key (object_id),
     key object_to_type_idx (object_type_id),
-    key object_to_children_group_idx (children_group_id),
+    key object_to_children_group_idx (children_group_id, object_id),
+    key object_children_by_name_idx (children_group_id, name),
     constraint object_to_type foreign key (object_type_id) references object_types (object_type_id)
         on delete set null on update cascade
     ) engine=innodb default charset=utf8;
@@ -61,6 +64,7 @@ create table children_groups (
     group_id bigint(20) unsigned not null,
     parent_id bigint(20) unsigned default null,
     object_type_id bigint(20) unsigned default null,
+    child_count bigint(20) unsigned not null default 0,
     primary key (group_id),
     key children_group_to_object_type_idx (object_type_id),
     key children_group_to_parent_idx (parent_id),
@@ -80,7 +84,7 @@ create table parameters (
     object_id bigint(20) unsigned default null,
     primary key (parameter_id),
     key parameter_to_attribute_idx (attribute_id),
-    key parameter_to_object_idx (object_id),
+    key parameter_to_object_idx (object_id, attribute_id),
     constraint parameter_to_object foreign key (object_id) references data_objects (object_id) 
         on delete set null on update cascade,
     constraint parameter_to_attribute foreign key (attribute_id) references attributes (attribute_id)
@@ -100,6 +104,8 @@ create table parameter_values (
     key param_to_reference_idx (reference_id),
     key param_to_list_value_idx (list_entry_id),
     key param_value_to_param_idx (parameter_id),
+    key param_value_by_text_idx (parameter_id, text_value),
+    key param_value_by_date_idx (parameter_id, date_value),
     constraint param_value_to_param foreign key (parameter_id) references parameters (parameter_id) 
         on delete set null on update cascade,
     constraint param_value_to_list_value foreign key (list_entry_id) references list_entries (list_entry_id) 
@@ -108,6 +114,17 @@ create table parameter_values (
         on delete set null on update cascade
 ) engine=innodb default charset=utf8;
 
+create table metadata_versions (
+    metadata_set varchar(20) not null,
+    version bigint(20) unsigned not null,
+    primary key (metadata_set)
+) engine=innodb default charset=utf8;
+
+insert into
+    metadata_versions (metadata_set, version)
+values
+    ('metadata', 0);
+
 create table if not exists id_generation_sequences (
     entity_set varchar(20) not null,
     last_id bigint(20) unsigned default null,
@@ -121,3 +138,5 @@ values
     ('data', 1000000000000000000)
 on duplicate key update
     last_id = 1000000000000000000;
+
+delete from id_generation_sequences where entity_set like 'data\_%';
@@ -1,18 +1,26 @@
 package com.anli.generalization.data;
 
-import com.anli.generalization.data.access.DataObjectProvider;
+import com.anli.generalization.data.access.beans.DataObjectProxyProvider;
+import com.anli.generalization.data.access.beans.ObjectSpec;
 import com.anli.generalization.data.access.metadata.AttributeProvider;
-import com.anli.generalization.data.access.metadata.ListEntryProvider;
+import com.anli.generalization.data.access.metadata.beans.ListEntryProvider;
 import com.anli.generalization.data.access.metadata.ObjectTypeProvider;
 import com.anli.generalization.data.entities.DataObject;
 import com.anli.generalization.data.entities.metadata.Attribute;
 import com.anli.generalization.data.entities.metadata.ListEntry;
 import com.anli.generalization.data.entities.metadata.ObjectType;
+import com.anli.generalization.data.entities.metadata.jpa.JpaAttribute;
+import com.anli.generalization.data.entities.metadata.snapshot.ListEntrySnapshot;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
+import com.anli.generalization.data.entities.metadata.snapshot.ObjectTypeSnapshot;
+import com.anli.generalization.data.entities.proxy.ChildrenPage;
+import com.anli.generalization.data.entities.proxy.DataObjectProxy;
 import com.anli.generalization.data.factory.JpaProviderFactory;
 import com.anli.generalization.data.utils.AttributeHelper;
 import com.anli.generalization.data.utils.DataObjectHelper;
 import com.anli.generalization.data.utils.ListEntryHelper;
 import com.anli.generalization.data.utils.ObjectTypeHelper;
+import com.anli.generalization.data.utils.QueryCounter;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -40,6 +48,7 @@ import static com.anli.generalization.data.utils.ValueFactory.bi;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -91,7 +100,7 @@ public class DataObjectParametersTest {
     private ObjectTypeProvider typeProvider;
     private AttributeProvider attrProvider;
     private ListEntryProvider listProvider;
-    private DataObjectProvider objectProvider;
+    private DataObjectProxyProvider objectProvider;
 
     @Before
     public void setUp() {
@@ -110,6 +119,7 @@ public class DataObjectParametersTest {
         prepareReferences();
         prepareAttributes();
         prepareListEntries();
+        MetadataVersion.increment();
     }
 
     protected void prepareTypes() {
@@ -1473,4 +1483,461 @@ public class DataObjectParametersTest {
         assertEquals(bi(M_LIST_C), listValue.get("listEntry"));
         assertEquals(0, listValue.get("order"));
     }
+
+    @Test
+    @InSequence(23)
+    public void testCreateAll_shouldCreateObjectsWithValues() throws Exception {
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(TYPE_A));
+        Attribute text = attrProvider.getById(bi(S_TEXT_ATTR));
+        Attribute dates = attrProvider.getById(bi(M_DATE_ATTR));
+        Attribute list = attrProvider.getById(bi(S_LIST_ATTR));
+        Attribute restRef = attrProvider.getById(bi(S_R_REF_ATTR));
+        DataObject reference = objectProvider.getById(bi(OBJECT_C));
+        ListEntry listEntry = listProvider.getById(bi(S_LIST_B));
+
+        List<ObjectSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ObjectSpec spec = new ObjectSpec(typeA);
+            spec.setName("Bulk " + i);
+            spec.setValue(text, "Text " + i);
+            spec.setValue(dates, asList(new DateTime(1439409164L + i), new DateTime(1439409165L + i)));
+            spec.setValue(list, listEntry);
+            spec.setValue(restRef, reference);
+            specs.add(spec);
+        }
+        List<DataObject> objects = objectProvider.createAll(specs);
+        List<BigInteger> ids = new ArrayList<>();
+        for (DataObject object : objects) {
+            ids.add(object.getId());
+        }
+
+        transaction.commit();
+
+        assertEquals(10, ids.size());
+        for (int i = 0; i < 10; i++) {
+            BigInteger id = ids.get(i);
+            assertEquals("Bulk " + i, objectHelper.readObject(id).get("name"));
+            Collection<BigInteger> parameters = objectHelper.readParametersByObject(id);
+            assertEquals(4, parameters.size());
+            for (BigInteger parameter : parameters) {
+                BigInteger attribute = (BigInteger) objectHelper.readParameter(parameter).get("attribute");
+                List<BigInteger> values = objectHelper.readValuesByParameter(parameter);
+                Map<String, Object> firstValue = objectHelper.readValue(values.get(0));
+                if (bi(S_TEXT_ATTR).equals(attribute)) {
+                    assertEquals(1, values.size());
+                    assertEquals("Text " + i, firstValue.get("text"));
+                } else if (bi(M_DATE_ATTR).equals(attribute)) {
+                    assertEquals(2, values.size());
+                    assertEquals(bi(1439409164L + i), firstValue.get("date"));
+                    assertEquals(bi(1439409165L + i), objectHelper.readValue(values.get(1)).get("date"));
+                } else if (bi(S_LIST_ATTR).equals(attribute)) {
+                    assertEquals(1, values.size());
+                    assertEquals(bi(S_LIST_B), firstValue.get("listEntry"));
+                } else if (bi(S_R_REF_ATTR).equals(attribute)) {
+                    assertEquals(1, values.size());
+                    assertEquals(bi(OBJECT_C), firstValue.get("reference"));
+                } else {
+                    fail(attribute.toString());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @InSequence(24)
+    public void testCreateAll_shouldCheckInvalidListEntries() throws Exception {
+        transaction.begin();
+
+        try {
+            ObjectType typeA = typeProvider.getById(bi(TYPE_A));
+            Attribute list = attrProvider.getById(bi(S_LIST_ATTR));
+            ListEntry foreignEntry = listProvider.getById(bi(M_LIST_A));
+            ObjectSpec spec = new ObjectSpec(typeA);
+            spec.setValue(list, foreignEntry);
+
+            objectProvider.createAll(asList(spec));
+        } finally {
+            transaction.rollback();
+        }
+    }
+
+    @Test
+    @InSequence(25)
+    public void testRemoveAll_shouldRemoveParametersOfAllObjects() throws Exception {
+        objectHelper.createObject(1650, "To Be Removed A", null, bi(TYPE_A), null);
+        objectHelper.createParameter(1651, bi(M_TEXT_ATTR), bi(1650));
+        objectHelper.createTextValue(1652, "Text A1");
+        objectHelper.createTextValue(1653, "Text A2");
+        objectHelper.linkValuesToParameter(1651, 1652, 1653);
+        objectHelper.createObject(1654, "To Be Removed B", null, bi(TYPE_A), null);
+        objectHelper.createParameter(1655, bi(S_REF_ATTR), bi(1654));
+        objectHelper.createReferenceValue(1656, bi(OBJECT_A));
+        objectHelper.linkValuesToParameter(1655, 1656);
+        objectHelper.createObject(1657, "Referencing", null, bi(TYPE_A), null);
+        objectHelper.createParameter(1658, bi(S_REF_ATTR), bi(1657));
+        objectHelper.createReferenceValue(1659, bi(1650));
+        objectHelper.linkValuesToParameter(1658, 1659);
+
+        transaction.begin();
+
+        DataObject first = objectProvider.getById(bi(1650));
+        DataObject second = objectProvider.getById(bi(1654));
+        Attribute text = attrProvider.getById(bi(M_TEXT_ATTR));
+        first.addMultipleValue(text, "Text A3");
+        objectProvider.removeAll(asList(first, second));
+
+        transaction.commit();
+
+        assertNull(objectHelper.readObject(bi(1650)));
+        assertNull(objectHelper.readObject(bi(1654)));
+        assertTrue(objectHelper.readParametersByObject(bi(1650)).isEmpty());
+        assertTrue(objectHelper.readParametersByObject(bi(1654)).isEmpty());
+        assertNull(objectHelper.readParameter(bi(1651)));
+        assertNull(objectHelper.readParameter(bi(1655)));
+        assertNull(objectHelper.readValue(bi(1652)));
+        assertNull(objectHelper.readValue(bi(1653)));
+        assertNull(objectHelper.readValue(bi(1656)));
+        assertNotNull(objectHelper.readObject(bi(1657)));
+        assertNotNull(objectHelper.readValue(bi(1659)));
+        assertNull(objectHelper.readValue(bi(1659)).get("reference"));
+    }
+
+    @Test
+    @InSequence(26)
+    public void testChildrenScan_shouldBatchFetchValues() throws Exception {
+        objectHelper.createObject(1660, "Scan Root", null, bi(TYPE_A), null);
+        objectHelper.createChildrenGroup(1661, bi(1660), bi(TYPE_A));
+
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(TYPE_A));
+        Attribute text = attrProvider.getById(bi(S_TEXT_ATTR));
+        Attribute list = attrProvider.getById(bi(S_LIST_ATTR));
+        Attribute ref = attrProvider.getById(bi(S_REF_ATTR));
+        DataObject reference = objectProvider.getById(bi(OBJECT_B));
+        ListEntry listEntry = listProvider.getById(bi(S_LIST_C));
+        List<ObjectSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ObjectSpec spec = new ObjectSpec(typeA);
+            spec.setName("Scanned " + i);
+            spec.setValue(text, "Scanned Text " + i);
+            spec.setValue(list, listEntry);
+            spec.setValue(ref, reference);
+            specs.add(spec);
+        }
+        DataObject root = objectProvider.getById(bi(1660));
+        for (DataObject child : objectProvider.createAll(specs)) {
+            root.addChild(child);
+        }
+
+        transaction.commit();
+
+        QueryCounter.clearCache();
+        QueryCounter counter = QueryCounter.install();
+        int textCount = 0;
+        int listCount = 0;
+        int refCount = 0;
+        try {
+            transaction.begin();
+
+            Attribute scanText = attrProvider.getById(bi(S_TEXT_ATTR));
+            Attribute scanList = attrProvider.getById(bi(S_LIST_ATTR));
+            Attribute scanRef = attrProvider.getById(bi(S_REF_ATTR));
+            DataObject scanRoot = objectProvider.getById(bi(1660));
+            ObjectType scanType = typeProvider.getById(bi(TYPE_A));
+            for (DataObject child : scanRoot.getChildren(scanType, false)) {
+                String textValue = child.getValue(scanText);
+                ListEntry listValue = child.getValue(scanList);
+                DataObject refValue = child.getValue(scanRef);
+                if (textValue.startsWith("Scanned Text ")) {
+                    textCount++;
+                }
+                if (bi(S_LIST_C).equals(listValue.getId())) {
+                    listCount++;
+                }
+                if (bi(OBJECT_B).equals(refValue.getId())) {
+                    refCount++;
+                }
+            }
+
+            transaction.commit();
+        } finally {
+            QueryCounter.uninstall();
+        }
+
+        assertEquals(1000, textCount);
+        assertEquals(1000, listCount);
+        assertEquals(1000, refCount);
+        assertTrue(counter.getCount() < 50);
+    }
+
+    @Test
+    @InSequence(27)
+    public void testReading_shouldNotLoadReferencedObjectsUntilTouched() throws Exception {
+        objectHelper.createObject(1662, "Referenced Root", null, bi(TYPE_A), null);
+        objectHelper.createChildrenGroup(1663, bi(1662), bi(TYPE_A));
+        objectHelper.createObject(1664, "Referenced Child", null, bi(TYPE_A), bi(1663));
+        objectHelper.createObject(1665, "Referencing Object", null, bi(TYPE_A), null);
+        objectHelper.createParameter(1666, bi(S_REF_ATTR), bi(1665));
+        objectHelper.createReferenceValue(1667, bi(1664));
+        objectHelper.linkValuesToParameter(1666, 1667);
+
+        transaction.begin();
+
+        Attribute ref = attrProvider.getById(bi(S_REF_ATTR));
+        DataObject dataObject = objectProvider.getById(bi(1665));
+        DataObjectProxy reference = dataObject.getValue(ref);
+        boolean hydratedBeforeId = reference.isHydrated();
+        BigInteger referenceId = reference.getId();
+        boolean hydratedAfterId = reference.isHydrated();
+        String referenceName = reference.getName();
+        boolean hydratedAfterName = reference.isHydrated();
+        BigInteger parentId = reference.getParent().getId();
+        boolean equalsLoaded = reference.equals(objectProvider.getById(bi(1664)));
+
+        transaction.commit();
+
+        assertFalse(hydratedBeforeId);
+        assertFalse(hydratedAfterId);
+        assertEquals(bi(1664), referenceId);
+        assertTrue(hydratedAfterName);
+        assertEquals("Referenced Child", referenceName);
+        assertEquals(bi(1662), parentId);
+        assertTrue(equalsLoaded);
+    }
+
+    @Test
+    @InSequence(28)
+    public void testReadOnlyReading_shouldReadValuesAndRejectChanges() throws Exception {
+        objectHelper.createObject(1668, "Read Only Object", null, bi(TYPE_A), null);
+        objectHelper.createParameter(1669, bi(S_TEXT_ATTR), bi(1668));
+        objectHelper.createTextValue(1670, "Read Only Text");
+        objectHelper.linkValuesToParameter(1669, 1670);
+        objectHelper.createParameter(1671, bi(S_REF_ATTR), bi(1668));
+        objectHelper.createReferenceValue(1672, bi(OBJECT_A));
+        objectHelper.linkValuesToParameter(1671, 1672);
+
+        transaction.begin();
+
+        Attribute text = attrProvider.getById(bi(S_TEXT_ATTR));
+        Attribute ref = attrProvider.getById(bi(S_REF_ATTR));
+        DataObject dataObject = objectProvider.getReadOnlyById(bi(1668));
+        String name = dataObject.getName();
+        String textValue = dataObject.getValue(text);
+        DataObjectProxy reference = dataObject.getValue(ref);
+        String referenceName = reference.getName();
+        boolean nameRejected = false;
+        try {
+            dataObject.setName("Changed");
+        } catch (UnsupportedOperationException ex) {
+            nameRejected = true;
+        }
+        boolean valueRejected = false;
+        try {
+            dataObject.setSingleValue(text, "Changed Text");
+        } catch (UnsupportedOperationException ex) {
+            valueRejected = true;
+        }
+        boolean referenceRejected = false;
+        try {
+            reference.setName("Changed");
+        } catch (UnsupportedOperationException ex) {
+            referenceRejected = true;
+        }
+        List<DataObject> readOnlyObjects = objectProvider.getReadOnlyByIds(asList(bi(1668), bi(1673)));
+        DataObject writable = objectProvider.getById(bi(1668));
+        writable.setDescription("Writable Description");
+
+        transaction.commit();
+
+        assertEquals("Read Only Object", name);
+        assertEquals("Read Only Text", textValue);
+        assertEquals("Object A", referenceName);
+        assertTrue(reference.isReadOnly());
+        assertTrue(nameRejected);
+        assertTrue(valueRejected);
+        assertTrue(referenceRejected);
+        assertEquals(2, readOnlyObjects.size());
+        assertTrue(((DataObjectProxy) readOnlyObjects.get(0)).isReadOnly());
+        assertNull(readOnlyObjects.get(1));
+        assertEquals("Read Only Object", objectHelper.readObject(bi(1668)).get("name"));
+        assertEquals("Writable Description", objectHelper.readObject(bi(1668)).get("description"));
+    }
+
+    @Test
+    @InSequence(29)
+    public void testListValue_shouldUseListEntryIndex() throws Exception {
+        objectHelper.createObject(1674, "List Index Object", null, bi(TYPE_A), null);
+
+        transaction.begin();
+
+        Attribute list = attrProvider.getById(bi(S_LIST_ATTR));
+        ListEntry foundEntry = listProvider.findListEntry(list, "SList B");
+        ListEntry missingEntry = listProvider.findListEntry(list, "SList Z");
+        DataObject dataObject = objectProvider.getById(bi(1674));
+        dataObject.setSingleValue(list, foundEntry);
+        boolean foreignRejected = false;
+        try {
+            dataObject.setSingleValue(list, listProvider.getById(bi(M_LIST_A)));
+        } catch (IllegalArgumentException ex) {
+            foreignRejected = true;
+        }
+
+        transaction.commit();
+
+        assertNotNull(foundEntry);
+        assertEquals(bi(S_LIST_B), foundEntry.getId());
+        assertNull(missingEntry);
+        assertTrue(foreignRejected);
+        Collection<BigInteger> parameters = objectHelper.readParametersByObject(bi(1674));
+        assertEquals(1, parameters.size());
+        List<BigInteger> values = objectHelper.readValuesByParameter(parameters.iterator().next());
+        assertEquals(1, values.size());
+        assertEquals(bi(S_LIST_B), objectHelper.readValue(values.get(0)).get("listEntry"));
+    }
+
+    @Test
+    @InSequence(30)
+    public void testGetSortedChildren_shouldPageByKey() throws Exception {
+        objectHelper.createObject(1675, "Sorted Parent", null, bi(TYPE_A), null);
+        objectHelper.createChildrenGroup(1676, bi(1675), bi(TYPE_A));
+        objectHelper.createObject(1677, "Sorted C", null, bi(TYPE_A), bi(1676));
+        objectHelper.createObject(1678, "Sorted A", null, bi(TYPE_A), bi(1676));
+        objectHelper.createObject(1679, "Sorted B", null, bi(TYPE_A), bi(1676));
+        objectHelper.createObject(1680, "Sorted D", null, bi(TYPE_A), bi(1676));
+        objectHelper.createParameter(1681, bi(S_TEXT_ATTR), bi(1677));
+        objectHelper.createTextValue(1682, "Banana");
+        objectHelper.linkValuesToParameter(1681, 1682);
+        objectHelper.createParameter(1683, bi(S_TEXT_ATTR), bi(1678));
+        objectHelper.createTextValue(1684, "Cherry");
+        objectHelper.linkValuesToParameter(1683, 1684);
+        objectHelper.createParameter(1685, bi(S_TEXT_ATTR), bi(1679));
+        objectHelper.createTextValue(1686, "Apple");
+        objectHelper.linkValuesToParameter(1685, 1686);
+
+        transaction.begin();
+
+        DataObjectProxy parent = (DataObjectProxy) objectProvider.getById(bi(1675));
+        ObjectType typeA = typeProvider.getById(bi(TYPE_A));
+        Attribute text = attrProvider.getById(bi(S_TEXT_ATTR));
+        ChildrenPage firstByName = parent.getSortedChildren(typeA, false, null, null, 2);
+        ChildrenPage secondByName = parent.getSortedChildren(typeA, false, null,
+                firstByName.getNextAfterId(), 2);
+        ChildrenPage firstByText = parent.getSortedChildren(typeA, false, text, null, 3);
+        ChildrenPage secondByText = parent.getSortedChildren(typeA, false, text,
+                firstByText.getNextAfterId(), 3);
+        ChildrenPage afterMissingText = parent.getSortedChildren(typeA, false, text, bi(1680), 1);
+        boolean multipleRejected = false;
+        try {
+            parent.getSortedChildren(typeA, false, attrProvider.getById(bi(M_TEXT_ATTR)), null, 3);
+        } catch (IllegalArgumentException ex) {
+            multipleRejected = true;
+        }
+        List<BigInteger> firstByNameIds = getIds(firstByName);
+        List<BigInteger> secondByNameIds = getIds(secondByName);
+        List<BigInteger> firstByTextIds = getIds(firstByText);
+        List<BigInteger> secondByTextIds = getIds(secondByText);
+        List<BigInteger> afterMissingTextIds = getIds(afterMissingText);
+
+        transaction.commit();
+
+        assertEquals(asList(bi(1678), bi(1679)), firstByNameIds);
+        assertTrue(firstByName.hasMore());
+        assertEquals(asList(bi(1677), bi(1680)), secondByNameIds);
+        assertFalse(secondByName.hasMore());
+        assertEquals(asList(bi(1680), bi(1679), bi(1677)), firstByTextIds);
+        assertTrue(firstByText.hasMore());
+        assertEquals(asList(bi(1678)), secondByTextIds);
+        assertFalse(secondByText.hasMore());
+        assertEquals(asList(bi(1679)), afterMissingTextIds);
+        assertTrue(multipleRejected);
+    }
+
+    @Test
+    @InSequence(31)
+    public void testRemoveByIds_shouldRefreshManagedReferencesToRemovedObjects() throws Exception {
+        objectHelper.createObject(1687, "Referring Object", null, bi(TYPE_A), null);
+        objectHelper.createObject(1688, "Removed Target", null, bi(TYPE_A), null);
+        objectHelper.createParameter(1689, bi(S_REF_ATTR), bi(1687));
+        objectHelper.createReferenceValue(1690, bi(1688));
+        objectHelper.linkValuesToParameter(1689, 1690);
+
+        transaction.begin();
+
+        Attribute reference = attrProvider.getById(bi(S_REF_ATTR));
+        DataObject referring = objectProvider.getById(bi(1687));
+        DataObject referenceBefore = referring.getValue(reference);
+        BigInteger referenceBeforeId = referenceBefore.getId();
+        objectProvider.removeByIds(asList(bi(1688), bi(1691)));
+        DataObject referenceAfter = referring.getValue(reference);
+
+        transaction.commit();
+
+        assertEquals(bi(1688), referenceBeforeId);
+        assertNull(referenceAfter);
+        assertNull(objectHelper.readObject(bi(1688)));
+        assertNull(objectHelper.readValue(bi(1690)).get("reference"));
+    }
+
+    @Test
+    @InSequence(32)
+    public void testReadOnlyReading_shouldServeMetadataFromSnapshot() throws Exception {
+        objectHelper.createObject(1692, "Snapshot Metadata Object", null, bi(TYPE_A), null);
+        objectHelper.createParameter(1693, bi(S_LIST_ATTR), bi(1692));
+        objectHelper.createListValue(1694, bi(S_LIST_A));
+        objectHelper.linkValuesToParameter(1693, 1694);
+
+        transaction.begin();
+
+        DataObject readOnly = objectProvider.getReadOnlyById(bi(1692));
+        ObjectType objectType = readOnly.getObjectType();
+        ListEntry listValue = readOnly.getValue(attrProvider.getById(bi(S_LIST_ATTR)));
+        DataObject writable = objectProvider.getById(bi(1692));
+        ObjectType writableType = writable.getObjectType();
+
+        transaction.commit();
+
+        assertTrue(objectType instanceof ObjectTypeSnapshot);
+        assertEquals(bi(TYPE_A), objectType.getId());
+        assertTrue(listValue instanceof ListEntrySnapshot);
+        assertEquals(bi(S_LIST_A), listValue.getId());
+        assertFalse(writableType instanceof ObjectTypeSnapshot);
+        assertEquals(bi(TYPE_A), writableType.getId());
+    }
+
+    @Test
+    @InSequence(33)
+    public void testFindListEntry_shouldResolveMissesWithoutLoadingEntries() throws Exception {
+        transaction.begin();
+
+        Attribute list = attrProvider.getById(bi(S_LIST_ATTR));
+        ListEntry foundEntry = listProvider.findListEntry(list, "SList B");
+        QueryCounter counter = QueryCounter.install();
+        ListEntry missingEntry;
+        try {
+            missingEntry = listProvider.findListEntry(list, "SList Missing");
+        } finally {
+            QueryCounter.uninstall();
+        }
+        boolean entriesLoaded = ((JpaAttribute) list).isListEntriesInstantiated();
+
+        transaction.commit();
+
+        assertNotNull(foundEntry);
+        assertFalse(foundEntry instanceof ListEntrySnapshot);
+        assertEquals(bi(S_LIST_B), foundEntry.getId());
+        assertNull(missingEntry);
+        assertEquals(0, counter.getCount());
+        assertFalse(entriesLoaded);
+    }
+
+    private List<BigInteger> getIds(ChildrenPage page) {
+        List<BigInteger> ids = new ArrayList<>();
+        for (DataObject object : page) {
+            ids.add(object.getId());
+        }
+        return ids;
+    }
 }
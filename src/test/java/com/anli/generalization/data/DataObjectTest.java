@@ -1,14 +1,21 @@
 package com.anli.generalization.data;
 
-import com.anli.generalization.data.access.DataObjectProvider;
+import com.anli.generalization.data.access.beans.DataObjectProxyProvider;
 import com.anli.generalization.data.access.metadata.ObjectTypeProvider;
 import com.anli.generalization.data.entities.DataObject;
 import com.anli.generalization.data.entities.metadata.ObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
+import com.anli.generalization.data.entities.proxy.ChildrenPage;
+import com.anli.generalization.data.entities.proxy.DataObjectProxy;
 import com.anli.generalization.data.factory.JpaProviderFactory;
 import com.anli.generalization.data.utils.DataObjectHelper;
 import com.anli.generalization.data.utils.ObjectTypeHelper;
+import com.anli.generalization.data.utils.QueryCounter;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Resource;
 import javax.sql.DataSource;
@@ -30,6 +37,7 @@ import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -51,7 +59,7 @@ public class DataObjectTest {
     private DataObjectHelper objectHelper;
 
     private ObjectTypeProvider typeProvider;
-    private DataObjectProvider objectProvider;
+    private DataObjectProxyProvider objectProvider;
 
     @Before
     public void setUp() {
@@ -74,6 +82,7 @@ public class DataObjectTest {
             typeHelper.createObjectType(1403, "Type C");
         }
         typeHelper.linkObjectTypesToParent(1402, 1403);
+        MetadataVersion.increment();
     }
 
     @Test
@@ -713,4 +722,473 @@ public class DataObjectTest {
 
         transaction.commit();
     }
+
+    @Test
+    @InSequence(19)
+    public void testCreateAll_shouldCreateEmptyObjectsWithType() throws Exception {
+        transaction.begin();
+
+        ObjectType typeB = typeProvider.getById(bi(1402));
+
+        List<DataObject> objects = objectProvider.createAll(typeB, 25);
+        List<BigInteger> ids = new ArrayList<>();
+        for (DataObject object : objects) {
+            ids.add(object.getId());
+        }
+
+        transaction.commit();
+
+        assertEquals(25, objects.size());
+        assertEquals(25, new HashSet<>(ids).size());
+        for (BigInteger id : ids) {
+            Map<String, Object> objectData = objectHelper.readObject(id);
+            assertEquals(id, objectData.get("id"));
+            assertNull(objectData.get("name"));
+            assertEquals(bi(1402), objectData.get("objectType"));
+            assertNull(objectData.get("group"));
+        }
+    }
+
+    @Test
+    @InSequence(20)
+    public void testCreateAll_shouldRollbackCreation() throws Exception {
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+
+        List<DataObject> objects = objectProvider.createAll(typeA, 3);
+        BigInteger id = objects.get(2).getId();
+
+        transaction.rollback();
+
+        assertNotNull(id);
+        assertNull(objectHelper.readObject(id));
+    }
+
+    @Test
+    @InSequence(21)
+    public void testReading_shouldReadSeveralInRequestOrder() throws Exception {
+        objectHelper.createObject(1440, "First", null, bi(1401), null);
+        objectHelper.createObject(1441, "Second", null, bi(1402), null);
+
+        transaction.begin();
+
+        List<DataObject> objects = objectProvider.getByIds(asList(bi(1441), bi(1442), bi(1440)));
+        String secondName = objects.get(0).getName();
+        String firstName = objects.get(2).getName();
+
+        transaction.commit();
+
+        assertEquals(3, objects.size());
+        assertEquals(bi(1441), objects.get(0).getId());
+        assertEquals("Second", secondName);
+        assertNull(objects.get(1));
+        assertEquals(bi(1440), objects.get(2).getId());
+        assertEquals("First", firstName);
+    }
+
+    @Test
+    @InSequence(22)
+    public void testRemoveByIds_shouldRemoveObjectsAndTheirGroups() throws Exception {
+        objectHelper.createObject(1443, "Root", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1444, bi(1443), bi(1401));
+        objectHelper.createObject(1445, "A", null, bi(1401), bi(1444));
+        objectHelper.createChildrenGroup(1446, bi(1445), bi(1402));
+        objectHelper.createObject(1447, "B", null, bi(1402), bi(1446));
+
+        transaction.begin();
+
+        DataObject root = objectProvider.getById(bi(1443));
+        Collection<DataObject> rootChildren = root.getChildren(typeProvider.getById(bi(1401)), false);
+        int childrenBefore = rootChildren.size();
+        objectProvider.removeByIds(asList(bi(1445), bi(1448)));
+        int childrenAfter = root.getChildren(typeProvider.getById(bi(1401)), false).size();
+
+        transaction.commit();
+
+        assertEquals(1, childrenBefore);
+        assertEquals(0, childrenAfter);
+        assertNotNull(objectHelper.readObject(bi(1443)));
+        assertNotNull(objectHelper.readChildrenGroup(bi(1444)));
+        assertNull(objectHelper.readObject(bi(1445)));
+        assertNull(objectHelper.readChildrenGroup(bi(1446)));
+        assertNull(objectHelper.readObject(bi(1447)).get("group"));
+    }
+
+    @Test
+    @InSequence(23)
+    public void testGetPath_shouldReturnAncestorsRootFirst() throws Exception {
+        objectHelper.createObject(1450, "Path Root", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1451, bi(1450), bi(1401));
+        objectHelper.createObject(1452, "Path Middle", null, bi(1401), bi(1451));
+        objectHelper.createChildrenGroup(1453, bi(1452), bi(1402));
+        objectHelper.createObject(1454, "Path Leaf", null, bi(1402), bi(1453));
+
+        transaction.begin();
+
+        DataObject leaf = objectProvider.getById(bi(1454));
+        List<DataObject> ancestors = objectProvider.getAncestors(leaf);
+        List<String> ancestorNames = new ArrayList<>();
+        for (DataObject ancestor : ancestors) {
+            ancestorNames.add(ancestor.getName());
+        }
+        List<DataObject> path = ((DataObjectProxy) leaf).getPath();
+        List<DataObject> rootAncestors = objectProvider.getAncestors(objectProvider.getById(bi(1450)));
+
+        transaction.commit();
+
+        assertEquals(asList("Path Root", "Path Middle"), ancestorNames);
+        assertEquals(3, path.size());
+        assertEquals(bi(1450), path.get(0).getId());
+        assertEquals(bi(1452), path.get(1).getId());
+        assertEquals(bi(1454), path.get(2).getId());
+        assertTrue(rootAncestors.isEmpty());
+    }
+
+    @Test
+    @InSequence(24)
+    public void testGetChildrenHierarchically_shouldCollectDescendantTypeGroups() throws Exception {
+        typeHelper.createObjectType(1455, "Closure Root");
+        typeHelper.createObjectType(1456, "Closure Child");
+        typeHelper.createObjectType(1457, "Closure Grandchild");
+        typeHelper.createObjectType(1458, "Closure Unrelated");
+        typeHelper.linkObjectTypesToParent(1455, 1456);
+        typeHelper.linkObjectTypesToParent(1456, 1457);
+        MetadataVersion.increment();
+        objectHelper.createObject(1459, "Closure Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1460, bi(1459), bi(1456));
+        objectHelper.createObject(1461, "Closure Child Object", null, bi(1456), bi(1460));
+        objectHelper.createChildrenGroup(1462, bi(1459), bi(1457));
+        objectHelper.createObject(1463, "Closure Grandchild Object", null, bi(1457), bi(1462));
+        objectHelper.createChildrenGroup(1464, bi(1459), bi(1458));
+        objectHelper.createObject(1465, "Closure Unrelated Object", null, bi(1458), bi(1464));
+
+        transaction.begin();
+
+        DataObject parent = objectProvider.getById(bi(1459));
+        ObjectType rootType = typeProvider.getById(bi(1455));
+        ObjectType childType = typeProvider.getById(bi(1456));
+        Collection<DataObject> rootChildren = parent.getChildren(rootType, true);
+        Collection<DataObject> hierarchicalChildren = parent.getChildren(childType, true);
+        Collection<DataObject> directChildren = parent.getChildren(childType, false);
+        HashSet<BigInteger> hierarchicalIds = new HashSet<>();
+        for (DataObject child : hierarchicalChildren) {
+            hierarchicalIds.add(child.getId());
+        }
+
+        transaction.commit();
+
+        assertEquals(2, rootChildren.size());
+        assertEquals(new HashSet<>(asList(bi(1461), bi(1463))), hierarchicalIds);
+        assertEquals(1, directChildren.size());
+        assertEquals(bi(1461), directChildren.iterator().next().getId());
+    }
+
+    @Test
+    @InSequence(25)
+    public void testReading_shouldReuseProxiesWithinTransaction() throws Exception {
+        objectHelper.createObject(1466, "Identity Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1467, bi(1466), bi(1401));
+        objectHelper.createObject(1468, "Identity Child", null, bi(1401), bi(1467));
+
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+        DataObject parent = objectProvider.getById(bi(1466));
+        DataObject sameParent = objectProvider.getById(bi(1466));
+        DataObject child = objectProvider.getById(bi(1468));
+        DataObject iteratedChild = parent.getChildren(typeA, false).iterator().next();
+        DataObject childParent = child.getParent();
+        DataObject readOnlyParent = objectProvider.getReadOnlyById(bi(1466));
+
+        transaction.commit();
+
+        transaction.begin();
+
+        DataObject nextParent = objectProvider.getById(bi(1466));
+
+        transaction.commit();
+
+        assertSame(parent, sameParent);
+        assertSame(child, iteratedChild);
+        assertSame(parent, childParent);
+        assertNotSame(parent, readOnlyParent);
+        assertEquals(parent, readOnlyParent);
+        assertNotSame(parent, nextParent);
+    }
+
+    @Test
+    @InSequence(26)
+    public void testChildCount_shouldCountWithoutLoadingChildren() throws Exception {
+        objectHelper.createObject(1471, "Counted Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1472, bi(1471), bi(1401));
+        objectHelper.createObject(1473, "Counted Child A", null, bi(1401), bi(1472));
+        objectHelper.createObject(1474, "Counted Child B", null, bi(1401), bi(1472));
+        objectHelper.createObject(1475, "Counted Child C", null, bi(1401), bi(1472));
+
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+        DataObject parent = objectProvider.getById(bi(1471));
+        Collection<DataObject> children = parent.getChildren(typeA, false);
+        QueryCounter counter = QueryCounter.install();
+        int size;
+        boolean empty;
+        try {
+            size = children.size();
+            empty = children.isEmpty();
+        } finally {
+            QueryCounter.uninstall();
+        }
+        DataObject added = objectProvider.create(typeA);
+        parent.addChild(added);
+        parent.removeChild(objectProvider.getById(bi(1473)));
+        int sizeAfterChanges = parent.getChildren(typeA, false).size();
+
+        transaction.commit();
+
+        assertEquals(3, size);
+        assertFalse(empty);
+        assertEquals(0, counter.getCount());
+        assertEquals(3, sizeAfterChanges);
+        assertEquals(bi(3), objectHelper.readChildrenGroup(bi(1472)).get("childCount"));
+        assertNull(objectHelper.readObject(bi(1473)).get("group"));
+        assertEquals(bi(1472), objectHelper.readObject(added.getId()).get("group"));
+    }
+
+    @Test
+    @InSequence(27)
+    public void testContains_shouldCheckMembershipWithoutLoadingChildren() throws Exception {
+        objectHelper.createObject(1476, "Member Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1477, bi(1476), bi(1401));
+        objectHelper.createObject(1478, "Member A", null, bi(1401), bi(1477));
+        objectHelper.createObject(1479, "Member B", null, bi(1401), bi(1477));
+        objectHelper.createObject(1480, "Other Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1481, bi(1480), bi(1401));
+        objectHelper.createObject(1482, "Other Member", null, bi(1401), bi(1481));
+
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+        Collection<DataObject> children = objectProvider.getById(bi(1476)).getChildren(typeA, false);
+        DataObject memberA = objectProvider.getById(bi(1478));
+        DataObject memberB = objectProvider.getById(bi(1479));
+        DataObject otherMember = objectProvider.getById(bi(1482));
+        QueryCounter counter = QueryCounter.install();
+        boolean containsMember;
+        boolean containsOther;
+        boolean containsAllMembers;
+        boolean containsAllWithOther;
+        try {
+            containsMember = children.contains(memberA);
+            containsOther = children.contains(otherMember);
+            containsAllMembers = children.containsAll(asList(memberA, memberB));
+            containsAllWithOther = children.containsAll(asList(memberA, otherMember));
+        } finally {
+            QueryCounter.uninstall();
+        }
+
+        transaction.commit();
+
+        assertTrue(containsMember);
+        assertFalse(containsOther);
+        assertTrue(containsAllMembers);
+        assertFalse(containsAllWithOther);
+        assertEquals(0, counter.getCount());
+    }
+
+    @Test
+    @InSequence(28)
+    public void testGetChildrenPage_shouldPageByIdAcrossGroups() throws Exception {
+        objectHelper.createObject(1483, "Paged Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1484, bi(1483), bi(1402));
+        objectHelper.createObject(1485, "Paged B 1", null, bi(1402), bi(1484));
+        objectHelper.createChildrenGroup(1486, bi(1483), bi(1403));
+        objectHelper.createObject(1487, "Paged B 2", null, bi(1402), bi(1484));
+        objectHelper.createObject(1488, "Paged C 1", null, bi(1403), bi(1486));
+        objectHelper.createObject(1489, "Paged B 3", null, bi(1402), bi(1484));
+        objectHelper.createObject(1490, "Paged C 2", null, bi(1403), bi(1486));
+
+        transaction.begin();
+
+        DataObjectProxy parent = (DataObjectProxy) objectProvider.getById(bi(1483));
+        ObjectType typeB = typeProvider.getById(bi(1402));
+        ChildrenPage firstPage = parent.getChildren(typeB, true, null, 2);
+        ChildrenPage secondPage = parent.getChildren(typeB, true, firstPage.getNextAfterId(), 2);
+        ChildrenPage lastPage = parent.getChildren(typeB, true, secondPage.getNextAfterId(), 2);
+        ChildrenPage directFirstPage = parent.getChildren(typeB, false, null, 2);
+        ChildrenPage directLastPage = parent.getChildren(typeB, false, directFirstPage.getNextAfterId(), 2);
+        List<BigInteger> firstIds = getIds(firstPage.getObjects());
+        List<BigInteger> secondIds = getIds(secondPage.getObjects());
+        List<BigInteger> lastIds = getIds(lastPage.getObjects());
+        List<BigInteger> directFirstIds = getIds(directFirstPage.getObjects());
+        List<BigInteger> directLastIds = getIds(directLastPage.getObjects());
+
+        transaction.commit();
+
+        assertEquals(asList(bi(1485), bi(1487)), firstIds);
+        assertTrue(firstPage.hasMore());
+        assertEquals(asList(bi(1488), bi(1489)), secondIds);
+        assertTrue(secondPage.hasMore());
+        assertEquals(asList(bi(1490)), lastIds);
+        assertFalse(lastPage.hasMore());
+        assertNull(lastPage.getNextAfterId());
+        assertEquals(asList(bi(1485), bi(1487)), directFirstIds);
+        assertTrue(directFirstPage.hasMore());
+        assertEquals(asList(bi(1489)), directLastIds);
+        assertFalse(directLastPage.hasMore());
+    }
+
+    @Test
+    @InSequence(29)
+    public void testAddChild_shouldKeepLoadedAndUnloadedGroupsConsistent() throws Exception {
+        objectHelper.createObject(1491, "Loaded Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1492, bi(1491), bi(1401));
+        objectHelper.createObject(1493, "Loaded Child A", null, bi(1401), bi(1492));
+        objectHelper.createObject(1494, "Loaded Child B", null, bi(1401), bi(1492));
+        objectHelper.createObject(1495, "Unloaded Parent", null, bi(1401), null);
+        objectHelper.createChildrenGroup(1496, bi(1495), bi(1401));
+        objectHelper.createObject(1497, "Unloaded Child", null, bi(1401), bi(1496));
+
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+        DataObject loadedParent = objectProvider.getById(bi(1491));
+        List<BigInteger> loadedIds = getIds(loadedParent.getChildren(typeA, false));
+        DataObject loadedAdded = objectProvider.create(typeA);
+        loadedParent.addChild(loadedAdded);
+        loadedParent.removeChild(objectProvider.getById(bi(1493)));
+        HashSet<BigInteger> loadedIdsAfterChanges =
+                new HashSet<>(getIds(loadedParent.getChildren(typeA, false)));
+        DataObject unloadedParent = objectProvider.getById(bi(1495));
+        DataObject unloadedAdded = objectProvider.create(typeA);
+        unloadedParent.addChild(unloadedAdded);
+        HashSet<BigInteger> unloadedIds = new HashSet<>(getIds(unloadedParent.getChildren(typeA, false)));
+
+        transaction.commit();
+
+        assertEquals(new HashSet<>(asList(bi(1493), bi(1494))), new HashSet<>(loadedIds));
+        assertEquals(new HashSet<>(asList(bi(1494), loadedAdded.getId())), loadedIdsAfterChanges);
+        assertEquals(new HashSet<>(asList(bi(1497), unloadedAdded.getId())), unloadedIds);
+        assertEquals(bi(2), objectHelper.readChildrenGroup(bi(1492)).get("childCount"));
+        assertEquals(bi(2), objectHelper.readChildrenGroup(bi(1496)).get("childCount"));
+        assertNull(objectHelper.readObject(bi(1493)).get("group"));
+        assertEquals(bi(1492), objectHelper.readObject(loadedAdded.getId()).get("group"));
+        assertEquals(bi(1496), objectHelper.readObject(unloadedAdded.getId()).get("group"));
+    }
+
+    @Test
+    @InSequence(30)
+    public void testAddAndMoveChildren_shouldReparentInBatches() throws Exception {
+        objectHelper.createObject(1498, "Batch Source", null, bi(1401), null);
+        objectHelper.createObject(1499, "Batch Target", null, bi(1401), null);
+
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+        ObjectType typeB = typeProvider.getById(bi(1402));
+        DataObjectProxy source = (DataObjectProxy) objectProvider.getById(bi(1498));
+        List<DataObject> children = new ArrayList<>(objectProvider.createAll(typeA, 3));
+        children.add(objectProvider.create(typeB));
+        source.addChildren(children);
+        int addedA = source.getChildren(typeA, false).size();
+        int addedB = source.getChildren(typeB, false).size();
+        List<BigInteger> childIds = getIds(children);
+
+        transaction.commit();
+
+        transaction.begin();
+
+        DataObject movedSource = objectProvider.getById(bi(1498));
+        DataObject target = objectProvider.getById(bi(1499));
+        objectProvider.moveChildren(movedSource, target, typeProvider.getById(bi(1401)));
+        boolean sourceEmpty = movedSource.getChildren(typeProvider.getById(bi(1401)), false).isEmpty();
+        HashSet<BigInteger> movedIds =
+                new HashSet<>(getIds(target.getChildren(typeProvider.getById(bi(1401)), false)));
+
+        transaction.commit();
+
+        assertEquals(3, addedA);
+        assertEquals(1, addedB);
+        assertTrue(sourceEmpty);
+        assertEquals(new HashSet<>(childIds.subList(0, 3)), movedIds);
+        Collection<BigInteger> sourceGroups = objectHelper.readGroupsByParent(bi(1498));
+        assertEquals(1, sourceGroups.size());
+        BigInteger sourceGroup = sourceGroups.iterator().next();
+        assertEquals(bi(1), objectHelper.readChildrenGroup(sourceGroup).get("childCount"));
+        assertEquals(sourceGroup, objectHelper.readObject(childIds.get(3)).get("group"));
+        Collection<BigInteger> targetGroups = objectHelper.readGroupsByParent(bi(1499));
+        assertEquals(1, targetGroups.size());
+        BigInteger targetGroup = targetGroups.iterator().next();
+        assertEquals(bi(3), objectHelper.readChildrenGroup(targetGroup).get("childCount"));
+        for (BigInteger id : childIds.subList(0, 3)) {
+            assertEquals(targetGroup, objectHelper.readObject(id).get("group"));
+        }
+    }
+
+    @Test
+    @InSequence(31)
+    public void testGetAncestors_shouldWalkDeepChainsAndStopAtCycles() throws Exception {
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+        List<DataObject> chain = objectProvider.createAll(typeA, 40);
+        for (int i = 1; i < chain.size(); i++) {
+            chain.get(i - 1).addChild(chain.get(i));
+        }
+        DataObject cycleFirst = objectProvider.create(typeA);
+        DataObject cycleSecond = objectProvider.create(typeA);
+        cycleFirst.addChild(cycleSecond);
+        cycleSecond.addChild(cycleFirst);
+        List<BigInteger> chainIds = getIds(chain);
+
+        transaction.commit();
+
+        transaction.begin();
+
+        List<BigInteger> chainAncestorIds =
+                getIds(objectProvider.getAncestors(objectProvider.getById(chainIds.get(chainIds.size() - 1))));
+        List<BigInteger> cycleAncestorIds =
+                getIds(objectProvider.getAncestors(objectProvider.getById(cycleFirst.getId())));
+
+        transaction.commit();
+
+        assertEquals(chainIds.subList(0, chainIds.size() - 1), chainAncestorIds);
+        assertEquals(asList(cycleSecond.getId()), cycleAncestorIds);
+    }
+
+    @Test
+    @InSequence(32)
+    public void testRemoveChild_shouldRecountStaleZeroChildCount() throws Exception {
+        transaction.begin();
+
+        ObjectType typeA = typeProvider.getById(bi(1401));
+        DataObject parent = objectProvider.create(typeA);
+        DataObject firstChild = objectProvider.create(typeA);
+        DataObject secondChild = objectProvider.create(typeA);
+        parent.addChild(firstChild);
+        parent.addChild(secondChild);
+
+        transaction.commit();
+
+        BigInteger groupId = (BigInteger) objectHelper.readObject(firstChild.getId()).get("group");
+        objectHelper.resetChildCount(groupId);
+
+        transaction.begin();
+
+        objectProvider.getById(parent.getId()).removeChild(objectProvider.getById(firstChild.getId()));
+
+        transaction.commit();
+
+        assertEquals(bi(1), objectHelper.readChildrenGroup(groupId).get("childCount"));
+        assertNull(objectHelper.readObject(firstChild.getId()).get("group"));
+    }
+
+    private List<BigInteger> getIds(Collection<DataObject> objects) {
+        List<BigInteger> ids = new ArrayList<>(objects.size());
+        for (DataObject object : objects) {
+            ids.add(object.getId());
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,213 @@
+package com.anli.generalization.data;
+
+import com.anli.generalization.data.sequencing.IdBlockAllocator;
+import com.anli.generalization.data.sequencing.IdGenerator;
+import com.anli.generalization.data.sequencing.IdRange;
+import com.anli.generalization.data.sequencing.NodeTimeIdGenerator;
+import com.anli.generalization.data.sequencing.PooledIdGenerator;
+import com.anli.generalization.data.sequencing.StripedIdGenerator;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.PersistenceException;
+import javax.sql.DataSource;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.junit.InSequence;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.anli.generalization.data.sequencing.IdBlockAllocator.DEFAULT_ENTITY_SET;
+import static com.anli.generalization.data.utils.CommonDeployment.getDeployment;
+import static com.anli.generalization.data.utils.JndiUtils.getDataSource;
+import static java.math.BigInteger.ONE;
+import static java.math.BigInteger.TEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Arquillian.class)
+public class IdGenerationTest {
+
+    private static final BigInteger SEEDED_ID = TEN.pow(18);
+
+    @Deployment
+    public static Archive createDeployment() {
+        return getDeployment();
+    }
+
+    private DataSource dataSource;
+
+    private IdBlockAllocator allocator;
+
+    @Before
+    public void setUp() {
+        dataSource = getDataSource();
+        allocator = new IdBlockAllocator(dataSource);
+    }
+
+    @Test
+    @InSequence(0)
+    public void testAllocate_shouldReturnConsecutiveBlocks() {
+        IdRange first = allocator.allocate(DEFAULT_ENTITY_SET, 10);
+        IdRange second = allocator.allocate(DEFAULT_ENTITY_SET, 5);
+
+        assertEquals(10, first.size());
+        assertEquals(5, second.size());
+        assertTrue(first.getFirst().compareTo(SEEDED_ID) > 0);
+        assertEquals(first.getFirst().add(BigInteger.valueOf(9)), first.getLast());
+        assertTrue(second.getFirst().compareTo(first.getLast()) > 0);
+    }
+
+    @Test
+    @InSequence(1)
+    public void testPooledNextId_shouldGenerateUniqueIdsFromSeveralGenerators() throws Exception {
+        List<IdGenerator> generators = new ArrayList<>();
+        generators.add(new PooledIdGenerator(allocator, DEFAULT_ENTITY_SET, 7));
+        generators.add(new PooledIdGenerator(allocator, DEFAULT_ENTITY_SET, 20));
+
+        Set<BigInteger> ids = generateConcurrently(generators, 8, 500);
+
+        assertEquals(8 * 500, ids.size());
+        for (BigInteger id : ids) {
+            assertTrue(id.compareTo(SEEDED_ID) > 0);
+        }
+    }
+
+    @Test
+    @InSequence(2)
+    public void testPooledReserveIds_shouldNotOverlapGeneratedIds() {
+        IdGenerator generator = new PooledIdGenerator(allocator, DEFAULT_ENTITY_SET, 10);
+
+        BigInteger generated = generator.nextId();
+        List<BigInteger> reserved = generator.reserveIds(100);
+        BigInteger nextGenerated = generator.nextId();
+
+        assertEquals(100, reserved.size());
+        assertEquals(generated.add(ONE), nextGenerated);
+        assertTrue(reserved.get(0).compareTo(generated) > 0);
+        assertTrue(reserved.get(0).compareTo(nextGenerated) > 0);
+        assertEquals(new HashSet<>(reserved).size(), reserved.size());
+    }
+
+    @Test
+    @InSequence(3)
+    public void testStripedNextId_shouldGenerateUniqueIdsAboveSharedSequence() throws Exception {
+        BigInteger sharedLast = allocator.allocate(DEFAULT_ENTITY_SET, 1).getLast();
+        List<IdGenerator> generators = new ArrayList<>();
+        generators.add(new StripedIdGenerator(allocator, DEFAULT_ENTITY_SET, 10, 4));
+        generators.add(new StripedIdGenerator(allocator, DEFAULT_ENTITY_SET, 25, 4));
+
+        Set<BigInteger> ids = generateConcurrently(generators, 16, 500);
+
+        assertEquals(16 * 500, ids.size());
+        for (BigInteger id : ids) {
+            assertTrue(id.compareTo(sharedLast) > 0);
+        }
+    }
+
+    @Test
+    @InSequence(4)
+    public void testStripedReserveIds_shouldKeepStripeResidue() {
+        IdGenerator generator = new StripedIdGenerator(allocator, DEFAULT_ENTITY_SET, 10, 4);
+
+        BigInteger generated = generator.nextId();
+        List<BigInteger> reserved = generator.reserveIds(50);
+
+        BigInteger stripes = BigInteger.valueOf(4);
+        BigInteger residue = generated.mod(stripes);
+        assertEquals(50, reserved.size());
+        for (BigInteger id : reserved) {
+            assertEquals(residue, id.mod(stripes));
+            assertTrue(id.compareTo(generated) > 0);
+        }
+        assertEquals(new HashSet<>(reserved).size(), reserved.size());
+    }
+
+    @Test
+    @InSequence(5)
+    public void testNodeTimeNextId_shouldGenerateIncreasingIdsWithinUnsignedBigint() {
+        IdGenerator generator = new NodeTimeIdGenerator(17);
+
+        BigInteger previous = generator.nextId();
+        List<BigInteger> reserved = generator.reserveIds(10000);
+
+        assertTrue(previous.compareTo(SEEDED_ID) > 0);
+        for (BigInteger id : reserved) {
+            assertTrue(id.compareTo(previous) > 0);
+            assertTrue(id.bitLength() < 64);
+            assertEquals(17, id.shiftRight(12).intValue() & 511);
+            previous = id;
+        }
+    }
+
+    @Test
+    @InSequence(6)
+    public void testNodeTimeNextId_shouldNotCollideBetweenNodes() throws Exception {
+        List<IdGenerator> generators = new ArrayList<>();
+        generators.add(new NodeTimeIdGenerator(1));
+        generators.add(new NodeTimeIdGenerator(2));
+
+        Set<BigInteger> ids = generateConcurrently(generators, 8, 5000);
+
+        assertEquals(8 * 5000, ids.size());
+    }
+
+    @Test
+    @InSequence(7)
+    public void testStripedNextId_shouldRefuseChangedStripeLayout() {
+        new StripedIdGenerator(allocator, DEFAULT_ENTITY_SET, 10, 4).nextId();
+        boolean changedCountRefused = false;
+        try {
+            new StripedIdGenerator(allocator, DEFAULT_ENTITY_SET, 10, 3).nextId();
+        } catch (PersistenceException ex) {
+            changedCountRefused = true;
+        }
+        boolean pooledRefused = false;
+        try {
+            new PooledIdGenerator(allocator, DEFAULT_ENTITY_SET, 10).nextId();
+        } catch (PersistenceException ex) {
+            pooledRefused = true;
+        }
+
+        assertTrue(changedCountRefused);
+        assertTrue(pooledRefused);
+    }
+
+    private Set<BigInteger> generateConcurrently(final List<IdGenerator> generators, int threads,
+            final int idsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<BigInteger>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final IdGenerator generator = generators.get(i % generators.size());
+                futures.add(executor.submit(new Callable<List<BigInteger>>() {
+
+                    @Override
+                    public List<BigInteger> call() {
+                        List<BigInteger> ids = new ArrayList<>(idsPerThread);
+                        for (int j = 0; j < idsPerThread; j++) {
+                            ids.add(generator.nextId());
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            Set<BigInteger> ids = Collections.synchronizedSet(new HashSet<BigInteger>());
+            for (Future<List<BigInteger>> future : futures) {
+                ids.addAll(future.get());
+            }
+            return ids;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.anli.generalization.data;
 
-import com.anli.generalization.data.access.metadata.AttributeProvider;
+import com.anli.generalization.data.access.metadata.beans.AttributeProvider;
 import com.anli.generalization.data.access.metadata.ObjectTypeProvider;
 import com.anli.generalization.data.entities.metadata.Attribute;
 import com.anli.generalization.data.entities.metadata.AttributeType;
 import com.anli.generalization.data.entities.metadata.ObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.AttributeSnapshot;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
 import com.anli.generalization.data.factory.JpaProviderFactory;
 import com.anli.generalization.data.utils.AttributeHelper;
 import com.anli.generalization.data.utils.ObjectTypeHelper;
@@ -31,6 +33,7 @@ import static com.anli.generalization.data.utils.JndiUtils.getDataSource;
 import static com.anli.generalization.data.utils.JndiUtils.getTransaction;
 import static com.anli.generalization.data.utils.ValueFactory.bi;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -318,4 +321,80 @@ public class ObjectTypeAttributeTest {
         assertEquals(bi(1324), attrIds.get(0));
         assertEquals(bi(1325), attrIds.get(1));
     }
+
+    @Test
+    @InSequence(7)
+    public void testEffectiveAttributes_shouldIncludeInheritedByName() throws Exception {
+        typeHelper.createObjectType(1326, "Effective Parent");
+        typeHelper.createObjectType(1327, "Effective Child");
+        typeHelper.linkObjectTypesToParent(1326, 1327);
+        attrHelper.createAttribute(1328, TEXT, "Inherited", false, null);
+        attrHelper.createAttribute(1329, TEXT, "Shadowed", false, null);
+        attrHelper.createAttribute(1330, DATE, "Own", false, null);
+        attrHelper.createAttribute(1331, DATE, "Shadowed", false, null);
+        attrHelper.linkAttributesToObjectType(1326, 1328, 1329);
+        attrHelper.linkAttributesToObjectType(1327, 1330, 1331);
+        MetadataVersion.increment();
+
+        transaction.begin();
+
+        ObjectType child = typeProvider.getById(bi(1327));
+        ObjectType parent = typeProvider.getById(bi(1326));
+        Attribute inherited = attrProvider.getByName(child, "Inherited");
+        Attribute own = attrProvider.getByName(child, "Own");
+        Attribute shadowed = attrProvider.getByName(child, "Shadowed");
+        Attribute parentShadowed = attrProvider.getByName(parent, "Shadowed");
+        Attribute missing = attrProvider.getByName(parent, "Own");
+        List<Attribute> effective = attrProvider.getEffectiveAttributes(child);
+
+        transaction.commit();
+
+        assertEquals(bi(1328), inherited.getId());
+        assertEquals(bi(1330), own.getId());
+        assertEquals(bi(1331), shadowed.getId());
+        assertEquals(bi(1329), parentShadowed.getId());
+        assertNull(missing);
+        assertEquals(3, effective.size());
+        assertEquals(bi(1330), effective.get(0).getId());
+        assertEquals(bi(1331), effective.get(1).getId());
+        assertEquals(bi(1328), effective.get(2).getId());
+    }
+
+    @Test
+    @InSequence(8)
+    public void testEffectiveAttributes_shouldReturnManagedAndSeeLoadedAncestors() throws Exception {
+        typeHelper.createObjectType(1332, "Loaded Parent");
+        typeHelper.createObjectType(1333, "Loaded Child");
+        typeHelper.linkObjectTypesToParent(1332, 1333);
+        attrHelper.createAttribute(1334, TEXT, "Loaded Inherited", false, null);
+        attrHelper.createAttribute(1335, TEXT, "Loaded Own", false, null);
+        attrHelper.linkAttributesToObjectType(1332, 1334);
+        attrHelper.linkAttributesToObjectType(1333, 1335);
+        MetadataVersion.increment();
+
+        transaction.begin();
+
+        ObjectType child = typeProvider.getById(bi(1333));
+        Attribute own = attrProvider.getByName(child, "Loaded Own");
+        Attribute readOnlyOwn = attrProvider.getReadOnlyByName(child, "Loaded Own");
+        List<Attribute> effective = attrProvider.getEffectiveAttributes(child);
+        List<Attribute> readOnlyEffective = attrProvider.getReadOnlyEffectiveAttributes(child);
+        typeProvider.getById(bi(1332)).getAttributes().clear();
+        Attribute removedInherited = attrProvider.getByName(child, "Loaded Inherited");
+        List<Attribute> effectiveAfterRemoval = attrProvider.getEffectiveAttributes(child);
+
+        transaction.rollback();
+
+        assertEquals(bi(1335), own.getId());
+        assertFalse(own instanceof AttributeSnapshot);
+        assertTrue(readOnlyOwn instanceof AttributeSnapshot);
+        assertEquals(2, effective.size());
+        assertFalse(effective.get(1) instanceof AttributeSnapshot);
+        assertEquals(bi(1334), effective.get(1).getId());
+        assertEquals(2, readOnlyEffective.size());
+        assertTrue(readOnlyEffective.get(1) instanceof AttributeSnapshot);
+        assertNull(removedInherited);
+        assertEquals(1, effectiveAfterRemoval.size());
+        assertEquals(bi(1335), effectiveAfterRemoval.get(0).getId());
+    }
 }
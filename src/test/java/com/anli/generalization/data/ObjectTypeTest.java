@@ -1,12 +1,17 @@
 package com.anli.generalization.data;
 
-import com.anli.generalization.data.access.metadata.ObjectTypeProvider;
+import com.anli.generalization.data.access.metadata.beans.MetadataPreloader;
+import com.anli.generalization.data.access.metadata.beans.ObjectTypeProvider;
 import com.anli.generalization.data.entities.metadata.ObjectType;
+import com.anli.generalization.data.entities.metadata.snapshot.MetadataVersion;
 import com.anli.generalization.data.factory.JpaProviderFactory;
+import com.anli.generalization.data.utils.MetadataVersionHelper;
 import com.anli.generalization.data.utils.ObjectTypeHelper;
+import com.anli.generalization.data.utils.QueryCounter;
 import java.math.BigInteger;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Resource;
 import javax.sql.DataSource;
@@ -20,11 +25,16 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.transaction.IllegalTransactionStateException;
 
+import static com.anli.generalization.data.access.metadata.beans.MetadataPreloader.ASYNC_PRELOAD;
+import static com.anli.generalization.data.access.metadata.beans.MetadataPreloader.NO_PRELOAD;
+import static com.anli.generalization.data.access.metadata.beans.MetadataPreloader.SYNC_PRELOAD;
 import static com.anli.generalization.data.utils.CommonDeployment.getDeployment;
 import static com.anli.generalization.data.utils.JndiUtils.getDataSource;
 import static com.anli.generalization.data.utils.JndiUtils.getTransaction;
 import static com.anli.generalization.data.utils.ValueFactory.bi;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -44,6 +54,7 @@ public class ObjectTypeTest {
     private UserTransaction transaction;
 
     private ObjectTypeHelper helper;
+    private MetadataVersionHelper versionHelper;
 
     private ObjectTypeProvider provider;
 
@@ -52,6 +63,7 @@ public class ObjectTypeTest {
         dataSource = getDataSource();
         transaction = getTransaction();
         helper = new ObjectTypeHelper(dataSource);
+        versionHelper = new MetadataVersionHelper(dataSource);
         provider = JpaProviderFactory.getInstance().getObjectTypeProvider();
     }
 
@@ -605,4 +617,233 @@ public class ObjectTypeTest {
 
         transaction.commit();
     }
+
+    @Test
+    @InSequence(15)
+    public void testReading_shouldReadSeveralInRequestOrder() throws Exception {
+        helper.createObjectType(1131, "First");
+        helper.createObjectType(1132, "Second");
+        helper.createObjectType(1133, "Third");
+
+        transaction.begin();
+
+        List<ObjectType> types = provider.getByIds(asList(bi(1133), bi(1134), bi(1131), bi(1132),
+                bi(1131)));
+
+        transaction.commit();
+
+        assertEquals(5, types.size());
+        assertEquals(bi(1133), types.get(0).getId());
+        assertEquals("Third", types.get(0).getName());
+        assertNull(types.get(1));
+        assertEquals(bi(1131), types.get(2).getId());
+        assertEquals("First", types.get(2).getName());
+        assertEquals(bi(1132), types.get(3).getId());
+        assertEquals("Second", types.get(3).getName());
+        assertSame(types.get(2), types.get(4));
+    }
+
+    @Test
+    @InSequence(16)
+    public void testCachedReading_shouldServeSnapshotsWithoutQueries() throws Exception {
+        helper.createObjectType(1135, "Cached Parent");
+        helper.createObjectType(1136, "Cached Child");
+        helper.linkObjectTypesToParent(1135, 1136);
+        MetadataVersion.increment();
+
+        transaction.begin();
+
+        ObjectType child = provider.getReadOnlyById(bi(1136));
+
+        transaction.commit();
+
+        QueryCounter counter = QueryCounter.install();
+        ObjectType cachedChild;
+        String parentName;
+        Collection<ObjectType> parentChildren;
+        try {
+            transaction.begin();
+
+            cachedChild = provider.getReadOnlyById(bi(1136));
+            parentName = cachedChild.getParent().getName();
+            parentChildren = provider.getReadOnlyById(bi(1135)).getChildren();
+
+            transaction.commit();
+        } finally {
+            QueryCounter.uninstall();
+        }
+
+        assertSame(child, cachedChild);
+        assertEquals("Cached Child", cachedChild.getName());
+        assertEquals("Cached Parent", parentName);
+        assertEquals(1, parentChildren.size());
+        assertSame(cachedChild, parentChildren.iterator().next());
+        assertEquals(0, counter.getCount());
+        try {
+            cachedChild.setName("Changed");
+            fail();
+        } catch (UnsupportedOperationException ex) {
+        }
+
+        transaction.begin();
+
+        provider.getById(bi(1135)).setName("Renamed Parent");
+
+        transaction.commit();
+
+        transaction.begin();
+
+        String renamedAfterCommit = provider.getReadOnlyById(bi(1135)).getName();
+
+        transaction.commit();
+
+        assertEquals("Renamed Parent", renamedAfterCommit);
+    }
+
+    @Test
+    @InSequence(17)
+    public void testSubtypeCheck_shouldUseTypeTree() throws Exception {
+        helper.createObjectType(1137, "Subtype Root");
+        helper.createObjectType(1138, "Subtype Child");
+        helper.createObjectType(1139, "Subtype Grandchild");
+        helper.createObjectType(1140, "Subtype Unrelated");
+        helper.linkObjectTypesToParent(1137, 1138);
+        helper.linkObjectTypesToParent(1138, 1139);
+        MetadataVersion.increment();
+
+        transaction.begin();
+
+        ObjectType root = provider.getReadOnlyById(bi(1137));
+        ObjectType child = provider.getReadOnlyById(bi(1138));
+        ObjectType grandchild = provider.getReadOnlyById(bi(1139));
+        ObjectType unrelated = provider.getReadOnlyById(bi(1140));
+        boolean grandchildOfRoot = provider.isSubtype(grandchild, root);
+        boolean rootOfGrandchild = provider.isSubtype(root, grandchild);
+        boolean unrelatedOfRoot = provider.isSubtype(unrelated, root);
+        boolean childOfItself = provider.isSubtype(child, child);
+        ObjectType created = provider.create(provider.getById(bi(1139)));
+        boolean createdOfRoot = provider.isSubtype(created, root);
+
+        transaction.rollback();
+
+        assertTrue(grandchildOfRoot);
+        assertFalse(rootOfGrandchild);
+        assertFalse(unrelatedOfRoot);
+        assertTrue(childOfItself);
+        assertTrue(createdOfRoot);
+    }
+
+    @Test
+    @InSequence(18)
+    public void testSharedVersion_shouldInvalidateOnOtherNodeChange() throws Exception {
+        helper.createObjectType(1141, "Shared Before");
+        MetadataVersion.increment();
+
+        transaction.begin();
+
+        String nameBefore = provider.getReadOnlyById(bi(1141)).getName();
+
+        transaction.commit();
+
+        helper.renameObjectType(1141, "Shared After");
+        versionHelper.bumpVersion();
+        MetadataVersion.expireSharedCheck();
+
+        transaction.begin();
+
+        String nameAfter = provider.getReadOnlyById(bi(1141)).getName();
+
+        transaction.commit();
+
+        BigInteger versionBeforeWrite = versionHelper.readVersion();
+
+        transaction.begin();
+
+        provider.getById(bi(1141)).setName("Shared Written");
+
+        transaction.commit();
+
+        BigInteger versionAfterWrite = versionHelper.readVersion();
+        long localVersionAfterWrite = MetadataVersion.get();
+        MetadataVersion.expireSharedCheck();
+        MetadataVersion.checkShared();
+        long localVersionAfterCheck = MetadataVersion.get();
+
+        assertEquals("Shared Before", nameBefore);
+        assertEquals("Shared After", nameAfter);
+        assertEquals(versionBeforeWrite.add(BigInteger.ONE), versionAfterWrite);
+        assertEquals(localVersionAfterWrite, localVersionAfterCheck);
+    }
+
+    @Test
+    @InSequence(19)
+    public void testSubtypeCheck_shouldSeeUnflushedReparenting() throws Exception {
+        helper.createObjectType(1142, "Reparent Root");
+        helper.createObjectType(1143, "Reparent Child");
+        helper.createObjectType(1144, "Reparent Moved");
+        helper.linkObjectTypesToParent(1142, 1143);
+        MetadataVersion.increment();
+
+        transaction.begin();
+
+        ObjectType root = provider.getById(bi(1142));
+        ObjectType moved = provider.getById(bi(1144));
+        boolean movedOfRootBefore = provider.isSubtype(moved, root);
+        moved.setParent(provider.getById(bi(1143)));
+        boolean movedOfRootAfter = provider.isSubtype(moved, root);
+        ObjectType created = provider.create(null);
+        created.setParent(moved);
+        boolean createdOfRoot = provider.isSubtype(created, root);
+
+        transaction.rollback();
+
+        assertFalse(movedOfRootBefore);
+        assertTrue(movedOfRootAfter);
+        assertTrue(createdOfRoot);
+    }
+
+    @Test
+    @InSequence(20)
+    public void testPreload_shouldServeReadOnlyLookupsWithoutStatements() throws Exception {
+        helper.createObjectType(1145, "Preloaded Type");
+        MetadataVersion.increment();
+
+        JpaProviderFactory.getInstance().getMetadataPreloader().preload();
+
+        transaction.begin();
+
+        QueryCounter counter = QueryCounter.install();
+        String preloadedName;
+        try {
+            preloadedName = provider.getReadOnlyById(bi(1145)).getName();
+        } finally {
+            QueryCounter.uninstall();
+        }
+
+        transaction.commit();
+
+        assertEquals("Preloaded Type", preloadedName);
+        assertEquals(0, counter.getCount());
+    }
+
+    @Test
+    @InSequence(21)
+    public void testPreloadMode_shouldAcceptOnlyKnownModes() throws Exception {
+        String defaultMode = MetadataPreloader.parseMode(null);
+        String noneMode = MetadataPreloader.parseMode("none");
+        String syncMode = MetadataPreloader.parseMode(" sync ");
+        String asyncMode = MetadataPreloader.parseMode("async");
+        boolean invalidRejected = false;
+        try {
+            MetadataPreloader.parseMode("eager");
+        } catch (IllegalArgumentException ex) {
+            invalidRejected = true;
+        }
+
+        assertEquals(NO_PRELOAD, defaultMode);
+        assertEquals(NO_PRELOAD, noneMode);
+        assertEquals(SYNC_PRELOAD, syncMode);
+        assertEquals(ASYNC_PRELOAD, asyncMode);
+        assertTrue(invalidRejected);
+    }
 }
@@ -24,8 +24,12 @@ public class DataObjectHelper extends SqlHelper {
             + "from data_objects where object_id = ?";
     private static final String INSERT_CHILDREN_GROUP = "insert into children_groups "
             + "(group_id, parent_id, object_type_id) values (?, ?, ?)";
-    private static final String SELECT_CHILDREN_GROUP = "select group_id, parent_id, object_type_id "
-            + "from children_groups where group_id = ?";
+    private static final String INCREMENT_CHILD_COUNT = "update children_groups "
+            + "set child_count = child_count + 1 where group_id = ?";
+    private static final String RESET_CHILD_COUNT = "update children_groups "
+            + "set child_count = 0 where group_id = ?";
+    private static final String SELECT_CHILDREN_GROUP = "select group_id, parent_id, object_type_id, "
+            + "child_count from children_groups where group_id = ?";
     private static final String SELECT_CHILDREN_GROUPS_BY_PARENT = "select group_id "
             + "from children_groups where parent_id = ?";
     private static final String INSERT_PARAMETER = "insert into parameters (parameter_id, "
@@ -54,6 +58,9 @@ public class DataObjectHelper extends SqlHelper {
                 ? new BigDecimal(childrenGroup) : null;
         executor.executeUpdate(INSERT_OBJECT, asList(id, name, description, new BigDecimal(objectType),
                 decimalGroupId));
+        if (decimalGroupId != null) {
+            executor.executeUpdate(INCREMENT_CHILD_COUNT, asList(decimalGroupId));
+        }
     }
 
     public Map<String, Object> readObject(BigInteger id) {
@@ -65,6 +72,10 @@ public class DataObjectHelper extends SqlHelper {
                 new BigDecimal(objectType)));
     }
 
+    public void resetChildCount(BigInteger id) {
+        executor.executeUpdate(RESET_CHILD_COUNT, asList(new BigDecimal(id)));
+    }
+
     public Map<String, Object> readChildrenGroup(BigInteger id) {
         return executor.executeSelect(SELECT_CHILDREN_GROUP, asList(new BigDecimal(id)), new GroupReader());
     }
@@ -162,6 +173,7 @@ public class DataObjectHelper extends SqlHelper {
                 result.put("parent", getBigInteger(resultSet.getValue("parent_id", BigDecimal.class)));
                 result.put("objectType",
                         getBigInteger(resultSet.getValue("object_type_id", BigDecimal.class)));
+                result.put("childCount", getBigInteger(resultSet.getValue("child_count", BigDecimal.class)));
             } else {
                 return null;
             }
@@ -0,0 +1,38 @@
+package com.anli.generalization.data.utils;
+
+import com.anli.sqlexecution.handling.ResultSetHandler;
+import com.anli.sqlexecution.handling.TransformingResultSet;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+import static java.util.Arrays.asList;
+
+public class MetadataVersionHelper extends SqlHelper {
+
+    private static final String BUMP_METADATA_VERSION = "update metadata_versions "
+            + "set version = version + 1 where metadata_set = ?";
+    private static final String SELECT_METADATA_VERSION = "select version from metadata_versions "
+            + "where metadata_set = ?";
+
+    public MetadataVersionHelper(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    public void bumpVersion() {
+        executor.executeUpdate(BUMP_METADATA_VERSION, asList("metadata"));
+    }
+
+    public BigInteger readVersion() {
+        return executor.executeSelect(SELECT_METADATA_VERSION, asList("metadata"), new VersionReader());
+    }
+
+    protected class VersionReader implements ResultSetHandler<BigInteger> {
+
+        @Override
+        public BigInteger handle(TransformingResultSet resultSet) throws SQLException {
+            return resultSet.next() ? getBigInteger(resultSet.getValue(1, BigDecimal.class)) : null;
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class ObjectTypeHelper extends SqlHelper {
             + "(object_type_id, name) values (?, ?)";
     private static final String LINK_OBJECT_TYPE_TO_PARENT = "update object_types "
             + "set parent_type_id = ? where object_type_id = ?";
+    private static final String RENAME_OBJECT_TYPE = "update object_types "
+            + "set name = ? where object_type_id = ?";
     private static final String SELECT_OBJECT_TYPE = "select object_type_id, name, parent_type_id "
             + "from object_types where object_type_id = ?";
     private static final String SELECT_OBJECT_TYPE_IDS_BY_PARENT = "select object_type_id from object_types "
@@ -37,6 +39,10 @@ public class ObjectTypeHelper extends SqlHelper {
         }
     }
 
+    public void renameObjectType(long id, String name) {
+        executor.executeUpdate(RENAME_OBJECT_TYPE, asList(name, id));
+    }
+
     public Map<String, Object> readObjectType(BigInteger id) {
         return executor.executeSelect(SELECT_OBJECT_TYPE, asList(new BigDecimal(id)), new ObjectTypeReader());
     }
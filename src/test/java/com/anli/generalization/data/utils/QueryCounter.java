@@ -0,0 +1,92 @@
+package com.anli.generalization.data.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.persistence.internal.sessions.AbstractRecord;
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.Record;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.factories.SessionManager;
+
+public class QueryCounter implements SessionProfiler {
+
+    private static final String SESSION_NAME = "generalization";
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    public static Session getSession() {
+        return SessionManager.getManager().getSessions().get(SESSION_NAME);
+    }
+
+    public static QueryCounter install() {
+        QueryCounter counter = new QueryCounter();
+        getSession().setProfiler(counter);
+        return counter;
+    }
+
+    public static void uninstall() {
+        getSession().setProfiler(null);
+    }
+
+    public static void clearCache() {
+        getSession().getIdentityMapAccessor().initializeAllIdentityMaps();
+    }
+
+    public int getCount() {
+        return statements.get();
+    }
+
+    @Override
+    public void startOperationProfile(String operationName, DatabaseQuery query, int weight) {
+        if (SqlPrepare.equals(operationName)) {
+            statements.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void startOperationProfile(String operationName) {
+    }
+
+    @Override
+    public void endOperationProfile(String operationName, DatabaseQuery query, int weight) {
+    }
+
+    @Override
+    public void endOperationProfile(String operationName) {
+    }
+
+    @Override
+    public Object profileExecutionOfQuery(DatabaseQuery query, Record row, AbstractSession session) {
+        return session.internalExecuteQuery(query, (AbstractRecord) row);
+    }
+
+    @Override
+    public void setSession(Session session) {
+    }
+
+    @Override
+    public void update(String operationName, Object value) {
+    }
+
+    @Override
+    public void occurred(String operationName, AbstractSession session) {
+    }
+
+    @Override
+    public void occurred(String operationName, DatabaseQuery query, AbstractSession session) {
+    }
+
+    @Override
+    public void setProfileWeight(int weight) {
+    }
+
+    @Override
+    public int getProfileWeight() {
+        return ALL;
+    }
+
+    @Override
+    public void initialize() {
+    }
+}